@@ -20,7 +20,6 @@ import com.codingapi.txlcn.client.bean.DTXInfo;
 import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.support.DTXInfoPool;
 import com.codingapi.txlcn.commons.annotation.*;
-import com.codingapi.txlcn.commons.util.Transactions;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -77,9 +76,6 @@ public class TransactionAspect implements Ordered {
     @Around("txTransactionPointcut()")
     public Object transactionRunning(ProceedingJoinPoint point) throws Throwable {
         DTXInfo dtxInfo = DTXInfoPool.get(point);
-        TxTransaction txTransaction = dtxInfo.getBusinessMethod().getAnnotation(TxTransaction.class);
-        dtxInfo.setTransactionType(txTransaction.type());
-        dtxInfo.setTransactionPropagation(txTransaction.propagation());
         return dtxLogicWeaver.runTransaction(dtxInfo, point::proceed);
     }
 
@@ -87,9 +83,6 @@ public class TransactionAspect implements Ordered {
             "&& !tccTransactionPointcut() && !txTransactionPointcut()")
     public Object runWithLcnTransaction(ProceedingJoinPoint point) throws Throwable {
         DTXInfo dtxInfo = DTXInfoPool.get(point);
-        LcnTransaction lcnTransaction = dtxInfo.getBusinessMethod().getAnnotation(LcnTransaction.class);
-        dtxInfo.setTransactionType(Transactions.LCN);
-        dtxInfo.setTransactionPropagation(lcnTransaction.propagation());
         return dtxLogicWeaver.runTransaction(dtxInfo, point::proceed);
     }
 
@@ -97,9 +90,6 @@ public class TransactionAspect implements Ordered {
             "&& !tccTransactionPointcut() && !txTransactionPointcut()")
     public Object runWithTxcTransaction(ProceedingJoinPoint point) throws Throwable {
         DTXInfo dtxInfo = DTXInfoPool.get(point);
-        TxcTransaction txcTransaction = dtxInfo.getBusinessMethod().getAnnotation(TxcTransaction.class);
-        dtxInfo.setTransactionType(Transactions.TXC);
-        dtxInfo.setTransactionPropagation(txcTransaction.propagation());
         return dtxLogicWeaver.runTransaction(dtxInfo, point::proceed);
     }
 
@@ -107,9 +97,6 @@ public class TransactionAspect implements Ordered {
             "&& !txcTransactionPointcut() && !txTransactionPointcut()")
     public Object runWithTccTransaction(ProceedingJoinPoint point) throws Throwable {
         DTXInfo dtxInfo = DTXInfoPool.get(point);
-        TccTransaction tccTransaction = dtxInfo.getBusinessMethod().getAnnotation(TccTransaction.class);
-        dtxInfo.setTransactionType(Transactions.TCC);
-        dtxInfo.setTransactionPropagation(tccTransaction.propagation());
         return dtxLogicWeaver.runTransaction(dtxInfo, point::proceed);
     }
 
@@ -118,10 +105,9 @@ public class TransactionAspect implements Ordered {
         if (!(point.getThis() instanceof ITxTransaction)) {
             throw new IllegalStateException("error join point");
         }
-        DTXInfo dtxInfo = DTXInfoPool.get(point);
         ITxTransaction txTransaction = (ITxTransaction) point.getThis();
-        dtxInfo.setTransactionType(txTransaction.transactionType());
-        dtxInfo.setTransactionPropagation(DTXPropagation.REQUIRED);
+        DTXInfo dtxInfo = DTXInfoPool.descriptor(point)
+                .newInfo(point.getArgs(), txTransaction.transactionType(), DTXPropagation.REQUIRED);
         return dtxLogicWeaver.runTransaction(dtxInfo, point::proceed);
     }
 
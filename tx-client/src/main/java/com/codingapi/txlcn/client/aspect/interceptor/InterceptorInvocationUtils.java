@@ -16,8 +16,9 @@
 package com.codingapi.txlcn.client.aspect.interceptor;
 
 import com.codingapi.txlcn.client.bean.DTXInfo;
+import com.codingapi.txlcn.client.bean.DTXMethodDescriptor;
 import com.codingapi.txlcn.client.support.DTXInfoPool;
-import com.codingapi.txlcn.commons.annotation.*;
+import com.codingapi.txlcn.commons.annotation.DTXPropagation;
 import com.codingapi.txlcn.commons.util.Transactions;
 import org.aopalliance.intercept.MethodInvocation;
 
@@ -32,36 +33,11 @@ import java.util.Objects;
  */
 class InterceptorInvocationUtils {
 
-    static DTXInfo load(MethodInvocation invocation){
-        TxTransaction txTransaction = invocation.getMethod().getAnnotation(TxTransaction.class);
-        String transactionType = Transactions.LCN;
-        DTXPropagation dtxPropagation = DTXPropagation.REQUIRED;
-
-        if (Objects.nonNull(txTransaction)) {
-            transactionType = txTransaction.type();
-            dtxPropagation = txTransaction.propagation();
-        } else {
-            LcnTransaction lcnTransaction = invocation.getMethod().getAnnotation(LcnTransaction.class);
-            if (Objects.nonNull(lcnTransaction)) {
-                transactionType = Transactions.LCN;
-                dtxPropagation = lcnTransaction.propagation();
-            } else {
-                TxcTransaction txcTransaction = invocation.getMethod().getAnnotation(TxcTransaction.class);
-                if (Objects.nonNull(txcTransaction)) {
-                    transactionType = Transactions.TXC;
-                    dtxPropagation = txcTransaction.propagation();
-                } else {
-                    TccTransaction tccTransaction = invocation.getMethod().getAnnotation(TccTransaction.class);
-                    if (Objects.nonNull(tccTransaction)) {
-                        transactionType = Transactions.TCC;
-                        dtxPropagation = tccTransaction.propagation();
-                    }
-                }
-            }
+    static DTXInfo load(MethodInvocation invocation) {
+        DTXMethodDescriptor descriptor = DTXInfoPool.descriptor(invocation);
+        if (Objects.isNull(descriptor.getTransactionType())) {
+            return descriptor.newInfo(invocation.getArguments(), Transactions.LCN, DTXPropagation.REQUIRED);
         }
-        DTXInfo dtxInfo = DTXInfoPool.get(invocation);
-        dtxInfo.setTransactionType(transactionType);
-        dtxInfo.setTransactionPropagation(dtxPropagation);
-        return dtxInfo;
+        return descriptor.newInfo(invocation.getArguments());
     }
 }
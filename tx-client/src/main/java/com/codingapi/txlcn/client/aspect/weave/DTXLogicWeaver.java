@@ -83,14 +83,12 @@ public class DTXLogicWeaver {
                 dtxInfo.getBusinessMethod(), dtxInfo.getTransactionPropagation());
 
         //LCN事务处理器
+        DTXGroupContext context = new DTXGroupContext();
         try {
-            transactionAttachmentCache.setContext(info.getGroupId(), new DTXGroupContext());
+            transactionAttachmentCache.setContext(info.getGroupId(), context);
             return transactionServiceExecutor.transactionRunning(info);
         } finally {
-            DTXGroupContext context = transactionAttachmentCache.context(info.getGroupId());
-            synchronized (context.getLock()) {
-                context.getLock().notifyAll();
-            }
+            context.businessFinished();
             transactionAttachmentCache.destroyContext(info.getGroupId());
             DTXLocal.makeNeverAppeared();
             log.debug("tx-unit end------>");
@@ -45,7 +45,7 @@ public class DTXResourceWeaver {
         if (Objects.nonNull(dtxLocal) && dtxLocal.isProxy()) {
             String transactionType = dtxLocal.getTransactionType();
             TransactionResourceExecutor transactionResourceExecutor = transactionBeanHelper.loadTransactionResourceExecuter(transactionType);
-            Connection connection = transactionResourceExecutor.proxyConnection(() -> {
+            Connection connection = transactionResourceExecutor.proxyConnection(point.getTarget(), () -> {
                 try {
                     return (Connection) point.proceed();
                 } catch (Throwable throwable) {
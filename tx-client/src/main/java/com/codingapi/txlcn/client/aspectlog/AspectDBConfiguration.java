@@ -15,6 +15,7 @@
  */
 package com.codingapi.txlcn.client.aspectlog;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -26,6 +27,7 @@ import org.springframework.context.annotation.Configuration;
  * @author codingapi
  */
 @Configuration
+@ConditionalOnProperty(value = "tx-lcn.aspect.log.storage", havingValue = "h2", matchIfMissing = true)
 public class AspectDBConfiguration {
 
     @Bean
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import com.codingapi.txlcn.commons.exception.SerializerException;
+import com.codingapi.txlcn.commons.util.serializer.SerializerContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Description: 切面日志编解码。方法信息登记到持久化的方法字典，记录中只保存方法ID与参数值。
+ * <p>
+ * 格式: [byte 0][int methodId][参数序列化数据]。首字节非0的数据按旧格式（完整TransactionInfo）解码
+ */
+@Component
+@Slf4j
+public class AspectLogCodec {
+
+    private static final byte FORMAT_COMPACT = 0;
+
+    private final File dictionaryFile;
+
+    private final Map<String, Integer> methodIds = new ConcurrentHashMap<>();
+
+    private final Map<Integer, MethodDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AspectLogCodec(AspectLogDbProperties aspectLogDbProperties) {
+        this.dictionaryFile = new File(aspectLogDbProperties.getFilePath() + "-methods.dict");
+        loadDictionary();
+    }
+
+    /**
+     * 编码切面信息
+     *
+     * @param transactionInfo transactionInfo
+     * @return bytes
+     * @throws SerializerException SerializerException
+     */
+    public byte[] encode(TransactionInfo transactionInfo) throws SerializerException {
+        int methodId = methodId(transactionInfo);
+        byte[] args = SerializerContext.getInstance().serialize(new AspectArgs(transactionInfo.getArgumentValues()));
+        return ByteBuffer.allocate(1 + 4 + args.length).put(FORMAT_COMPACT).putInt(methodId).put(args).array();
+    }
+
+    /**
+     * 解码切面信息
+     *
+     * @param bytes bytes
+     * @return transactionInfo
+     * @throws SerializerException SerializerException
+     */
+    public TransactionInfo decode(byte[] bytes) throws SerializerException {
+        if (bytes.length == 0 || bytes[0] != FORMAT_COMPACT) {
+            return SerializerContext.getInstance().deSerialize(bytes, TransactionInfo.class);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        int methodId = buffer.getInt();
+        MethodDescriptor descriptor = descriptors.get(methodId);
+        if (Objects.isNull(descriptor)) {
+            throw new SerializerException("unknown aspect log method id: " + methodId);
+        }
+        byte[] args = new byte[buffer.remaining()];
+        buffer.get(args);
+        AspectArgs aspectArgs = SerializerContext.getInstance().deSerialize(args, AspectArgs.class);
+        return new TransactionInfo(descriptor.targetClazz, descriptor.method, descriptor.methodStr,
+                aspectArgs.argumentValues, descriptor.parameterTypes);
+    }
+
+    private int methodId(TransactionInfo transactionInfo) throws SerializerException {
+        String key = transactionInfo.getTargetClazz().getName() + '#' + transactionInfo.getMethodStr();
+        Integer id = methodIds.get(key);
+        if (Objects.nonNull(id)) {
+            return id;
+        }
+        return register(key, transactionInfo);
+    }
+
+    private synchronized int register(String key, TransactionInfo transactionInfo) throws SerializerException {
+        Integer id = methodIds.get(key);
+        if (Objects.nonNull(id)) {
+            return id;
+        }
+        int newId = descriptors.size() + 1;
+        MethodDescriptor descriptor = new MethodDescriptor(transactionInfo.getTargetClazz(), transactionInfo.getMethod(),
+                transactionInfo.getMethodStr(), transactionInfo.getParameterTypes());
+        // 先持久化字典再使用ID，保证记录总能被解码
+        try (FileOutputStream out = new FileOutputStream(dictionaryFile, true)) {
+            out.write((descriptor.toLine(newId) + '\n').getBytes(StandardCharsets.UTF_8));
+            out.getChannel().force(true);
+        } catch (IOException e) {
+            throw new SerializerException("write aspect log method dictionary error.", e);
+        }
+        descriptors.put(newId, descriptor);
+        methodIds.put(key, newId);
+        return newId;
+    }
+
+    private void loadDictionary() {
+        if (!dictionaryFile.exists()) {
+            File parent = dictionaryFile.getParentFile();
+            if (Objects.nonNull(parent) && !parent.exists() && !parent.mkdirs()) {
+                log.warn("can't create aspect log dir {}", parent);
+            }
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(dictionaryFile.toPath());
+            int start = 0;
+            while (start < content.length) {
+                int end = start;
+                while (end < content.length && content[end] != '\n') {
+                    end++;
+                }
+                if (end == content.length || !loadLine(new String(content, start, end - start, StandardCharsets.UTF_8))) {
+                    // 登记时崩溃留下的不完整尾部，截断后新的登记从完整行开始
+                    log.warn("aspect log method dictionary broken at {}, truncate the rest.", start);
+                    try (FileChannel channel = FileChannel.open(dictionaryFile.toPath(), StandardOpenOption.WRITE)) {
+                        channel.truncate(start);
+                    }
+                    break;
+                }
+                start = end + 1;
+            }
+            log.info("aspect log method dictionary loaded, methods: {}", descriptors.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("read aspect log method dictionary error.", e);
+        }
+    }
+
+    private boolean loadLine(String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        String[] parts = line.split("\t", -1);
+        if (parts.length != 5) {
+            return false;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        try {
+            MethodDescriptor descriptor = MethodDescriptor.fromLine(parts);
+            descriptors.put(id, descriptor);
+            methodIds.put(descriptor.targetClazz.getName() + '#' + descriptor.methodStr, id);
+        } catch (ClassNotFoundException e) {
+            // 类已不存在的方法保留ID占位，避免ID复用
+            descriptors.put(id, MethodDescriptor.MISSING);
+            log.warn("aspect log method dictionary: class not found {}", e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 参数值序列化载体
+     */
+    static class AspectArgs {
+
+        private Object[] argumentValues;
+
+        AspectArgs(Object[] argumentValues) {
+            this.argumentValues = argumentValues;
+        }
+    }
+
+    private static class MethodDescriptor {
+
+        private static final MethodDescriptor MISSING = new MethodDescriptor(Void.class, "", "", new Class[0]);
+
+        private final Class targetClazz;
+        private final String method;
+        private final String methodStr;
+        private final Class[] parameterTypes;
+
+        private MethodDescriptor(Class targetClazz, String method, String methodStr, Class[] parameterTypes) {
+            this.targetClazz = targetClazz;
+            this.method = method;
+            this.methodStr = methodStr;
+            this.parameterTypes = parameterTypes;
+        }
+
+        private String toLine(int id) {
+            StringBuilder types = new StringBuilder();
+            for (Class type : parameterTypes) {
+                if (types.length() > 0) {
+                    types.append(',');
+                }
+                types.append(type.getName());
+            }
+            return id + "\t" + targetClazz.getName() + "\t" + method + "\t" + methodStr + "\t" + types;
+        }
+
+        private static MethodDescriptor fromLine(String[] parts) throws ClassNotFoundException {
+            ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+            Class targetClazz = ClassUtils.forName(parts[1], classLoader);
+            String[] typeNames = parts[4].isEmpty() ? new String[0] : parts[4].split(",");
+            Class[] parameterTypes = new Class[typeNames.length];
+            for (int i = 0; i < typeNames.length; i++) {
+                parameterTypes[i] = ClassUtils.forName(typeNames[i], classLoader);
+            }
+            return new MethodDescriptor(targetClazz, parts[2], parts[3], parameterTypes);
+        }
+    }
+}
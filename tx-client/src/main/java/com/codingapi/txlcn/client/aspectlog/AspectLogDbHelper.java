@@ -24,7 +24,9 @@ import org.apache.commons.dbutils.handlers.ScalarHandler;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * Description: h2数据库操作类
@@ -61,6 +63,36 @@ public class AspectLogDbHelper implements DisposableBean {
     }
 
 
+    /**
+     * 单事务内按顺序执行多组批量语句，只提交一次
+     *
+     * @param batches sql -> 批量参数，按迭代顺序执行
+     * @return 是否全部成功
+     */
+    public boolean batchUpdate(Map<String, Object[][]> batches) {
+        try (Connection connection = hikariDataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, Object[][]> entry : batches.entrySet()) {
+                    if (entry.getValue().length > 0) {
+                        queryRunner.batch(connection, entry.getKey(), entry.getValue());
+                    }
+                }
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            log.error("batch update error", e);
+            return false;
+        }
+    }
+
     public <T> T query(String sql, ResultSetHandler<T> rsh,Object ... params){
         try {
             return queryRunner.query(sql, rsh,params);
@@ -42,8 +42,74 @@ public class AspectLogDbProperties {
                 (StringUtils.hasText(applicationName) ? applicationName : "application") +
                 "-" +
                 serverProperties.getPort();
+        this.flushInterval = 5;
+        this.batchSize = 256;
+        this.queueCapacity = 8192;
+        this.cleanInterval = 1000;
+        this.durability = AspectLogDurability.ASYNC;
+        this.syncTimeout = 10 * 1000;
+        this.storage = "h2";
+        this.segmentSize = 16 * 1024 * 1024;
+        this.compactInterval = 60 * 1000;
+        this.deferredWindow = 0;
+        this.deferredCapacity = 65536;
     }
 
     private String filePath;
 
+    /**
+     * 组提交等待时间 (ms)
+     */
+    private long flushInterval;
+
+    /**
+     * 单次组提交最大记录数
+     */
+    private int batchSize;
+
+    /**
+     * 待写入队列容量，满时阻塞调用方
+     */
+    private int queueCapacity;
+
+    /**
+     * 延迟删除的最长等待时间 (ms)。期间收集的删除操作合并执行
+     */
+    private long cleanInterval;
+
+    /**
+     * 写入持久化模式
+     */
+    private AspectLogDurability durability;
+
+    /**
+     * SYNC 模式等待组提交的最长时间 (ms)，超时视为写入失败
+     */
+    private long syncTimeout;
+
+    /**
+     * 切面日志存储. h2: 内嵌H2数据库, mmap: 内存映射的追加写日志文件
+     */
+    private String storage;
+
+    /**
+     * mmap存储单个段文件大小 (byte)
+     */
+    private int segmentSize;
+
+    /**
+     * mmap存储段压缩检查间隔 (ms)
+     */
+    private long compactInterval;
+
+    /**
+     * 切面日志延迟持久化时间窗口 (ms)。窗口内被清理的事务单元不产生磁盘写入，0为不延迟
+     */
+    private long deferredWindow;
+
+    /**
+     * 延迟持久化的最大内存记录数，超出时直接持久化
+     */
+    private int deferredCapacity;
+
 }
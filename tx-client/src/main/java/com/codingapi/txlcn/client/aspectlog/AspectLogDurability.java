@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+/**
+ * Description: 切面日志写入持久化模式
+ */
+public enum AspectLogDurability {
+
+    /**
+     * 提交到写入队列即返回，进程崩溃时可能丢失最近一个组提交窗口的日志
+     */
+    ASYNC,
+
+    /**
+     * 等待所在组提交完成后返回，提交失败或超过 syncTimeout 时抛出异常使调用失败
+     */
+    SYNC
+}
@@ -19,12 +19,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.handlers.ScalarHandler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Description: H2数据库操作
@@ -35,6 +38,7 @@ import java.util.List;
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(value = "tx-lcn.aspect.log.storage", havingValue = "h2", matchIfMissing = true)
 public class AspectLogHelper {
 
     private final AspectLogDbHelper aspectLogDbHelper;
@@ -58,6 +62,10 @@ public class AspectLogHelper {
                 "TIME BIGINT NOT NULL, " +
                 "PRIMARY KEY(ID) )");
 
+        // 二级索引。IF NOT EXISTS 保证已存在的H2文件在启动时同样完成迁移
+        aspectLogDbHelper.update("CREATE INDEX IF NOT EXISTS TXLCN_LOG_GROUP_UNIT_IDX ON TXLCN_LOG(GROUP_ID, UNIT_ID)");
+        aspectLogDbHelper.update("CREATE INDEX IF NOT EXISTS TXLCN_LOG_HASH_IDX ON TXLCN_LOG(GROUP_ID_HASH, UNIT_ID_HASH)");
+
         log.info("table init TXLCN_LOG finish");
 
     }
@@ -68,6 +76,33 @@ public class AspectLogHelper {
         return aspectLogDbHelper.update(insertSql, txLog.getUnitId(), txLog.getGroupId(), txLog.getBytes(), txLog.getMethodStr(), txLog.getGroupId().hashCode(), txLog.getUnitId().hashCode(), txLog.getTime()) > 0;
     }
 
+    /**
+     * 单事务批量删除与保存，先删除后保存
+     *
+     * @param saveLogs   待保存日志
+     * @param deleteLogs 待删除日志（按groupId, unitId）
+     * @return result
+     */
+    public boolean batch(List<AspectLog> saveLogs, List<AspectLog> deleteLogs) {
+        String insertSql = "INSERT INTO TXLCN_LOG(UNIT_ID,GROUP_ID,BYTES,METHOD_STR,GROUP_ID_HASH,UNIT_ID_HASH,TIME) VALUES(?,?,?,?,?,?,?)";
+        String deleteSql = "DELETE FROM TXLCN_LOG WHERE GROUP_ID = ? and UNIT_ID = ?";
+        Object[][] insertParams = new Object[saveLogs.size()][];
+        for (int i = 0; i < saveLogs.size(); i++) {
+            AspectLog txLog = saveLogs.get(i);
+            insertParams[i] = new Object[]{txLog.getUnitId(), txLog.getGroupId(), txLog.getBytes(), txLog.getMethodStr(),
+                    txLog.getGroupId().hashCode(), txLog.getUnitId().hashCode(), txLog.getTime()};
+        }
+        Object[][] deleteParams = new Object[deleteLogs.size()][];
+        for (int i = 0; i < deleteLogs.size(); i++) {
+            AspectLog txLog = deleteLogs.get(i);
+            deleteParams[i] = new Object[]{txLog.getGroupId(), txLog.getUnitId()};
+        }
+        Map<String, Object[][]> batches = new LinkedHashMap<>(2);
+        batches.put(deleteSql, deleteParams);
+        batches.put(insertSql, insertParams);
+        return aspectLogDbHelper.batchUpdate(batches);
+    }
+
     public boolean deleteAll() {
         String sql = "DELETE FROM TXLCN_LOG";
         return aspectLogDbHelper.update(sql) > 0;
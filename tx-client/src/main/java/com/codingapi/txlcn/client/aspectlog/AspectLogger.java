@@ -41,4 +41,13 @@ public interface AspectLogger {
      * @param unitId unitId
      */
     void clearLog(String groupId, String unitId);
+
+    /**
+     * 获取切面信息
+     *
+     * @param groupId groupId
+     * @param unitId unitId
+     * @return 切面信息，不存在时为null
+     */
+    TransactionInfo getTransactionInfo(String groupId, String unitId);
 }
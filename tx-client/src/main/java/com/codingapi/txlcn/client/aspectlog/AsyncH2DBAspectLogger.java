@@ -17,81 +17,131 @@ package com.codingapi.txlcn.client.aspectlog;
 
 import com.codingapi.txlcn.commons.bean.TransactionInfo;
 import com.codingapi.txlcn.commons.exception.SerializerException;
-import com.codingapi.txlcn.commons.util.serializer.SerializerContext;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Description: 切面日志的异步操作
+ * Description: 切面日志的异步操作。保存与删除经组提交写入器合并为批量事务。
+ * 由 Spring 按依赖顺序关闭，晚于 {@link DeferredAspectLogger} 的最后一次刷写
  * Date: 2018/12/28
  *
  * @author ujued
  * @see AspectLogger
+ * @see GroupCommitAspectLogWriter
  */
 @Component
+@Qualifier(DeferredAspectLogger.STORAGE_QUALIFIER)
 @Slf4j
-public class AsyncH2DBAspectLogger implements AspectLogger {
+@ConditionalOnProperty(value = "tx-lcn.aspect.log.storage", havingValue = "h2", matchIfMissing = true)
+public class AsyncH2DBAspectLogger implements AspectLogger, InitializingBean, DisposableBean {
 
-    private static final ExecutorService executorService =
-            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final AspectLogHelper txLogHelper;
 
+    private final GroupCommitAspectLogWriter aspectLogWriter;
 
-    private final AspectLogHelper txLogHelper;
+    private final AspectLogDbProperties aspectLogDbProperties;
+
+    private final AspectLogCodec aspectLogCodec;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     @Autowired
-    public AsyncH2DBAspectLogger(AspectLogHelper txLogHelper) {
+    public AsyncH2DBAspectLogger(AspectLogHelper txLogHelper, AspectLogDbProperties aspectLogDbProperties,
+                                 AspectLogCodec aspectLogCodec) {
         this.txLogHelper = txLogHelper;
-
-        // 等待线程池任务完成
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            executorService.shutdown();
-            try {
-                executorService.awaitTermination(10, TimeUnit.MINUTES);
-            } catch (InterruptedException ignored) {
-            }
-        }));
+        this.aspectLogCodec = aspectLogCodec;
+        this.aspectLogDbProperties = aspectLogDbProperties;
+        this.aspectLogWriter = new GroupCommitAspectLogWriter(txLogHelper, aspectLogDbProperties);
     }
 
     @Override
     public void trace(String groupId, String unitId, TransactionInfo transactionInfo) {
-        executorService.submit(() -> {
-            long t1 = System.currentTimeMillis();
-            log.debug("event-save-start->{}", groupId);
-            byte[] bytes;
-            try {
-                bytes = SerializerContext.getInstance().serialize(transactionInfo);
-            } catch (SerializerException e) {
-                e.printStackTrace();
-                return;
-            }
-            AspectLog txLog = new AspectLog();
-            txLog.setBytes(bytes);
-            txLog.setGroupId(groupId);
-            txLog.setUnitId(unitId);
-            txLog.setMethodStr(transactionInfo.getMethodStr());
-            txLog.setTime(System.currentTimeMillis());
-            txLog.setUnitIdHash(groupId.hashCode());
-            txLog.setUnitIdHash(unitId.hashCode());
-
-            boolean res = txLogHelper.save(txLog);
-            long t2 = System.currentTimeMillis();
-            log.debug("event-save-over ok:{} ->{},time:{}", res, groupId, (t2 - t1));
-        });
+        log.debug("event-save-start->{}", groupId);
+        byte[] bytes;
+        try {
+            // 在调用线程序列化，避免切面参数在异步写入前被改写
+            bytes = aspectLogCodec.encode(transactionInfo);
+        } catch (SerializerException e) {
+            log.error("serialize aspect log error.", e);
+            return;
+        }
+        AspectLog txLog = new AspectLog();
+        txLog.setBytes(bytes);
+        txLog.setGroupId(groupId);
+        txLog.setUnitId(unitId);
+        txLog.setMethodStr(transactionInfo.getMethodStr());
+        txLog.setTime(System.currentTimeMillis());
+        txLog.setGroupIdHash(groupId.hashCode());
+        txLog.setUnitIdHash(unitId.hashCode());
+
+        awaitIfDurable(aspectLogWriter.save(txLog), groupId);
     }
 
     @Override
     public void clearLog(String groupId, String unitId) {
-        executorService.submit(() -> {
-            long t1 = System.currentTimeMillis();
-            log.debug("event-clear-start->{}", groupId);
-            boolean res = txLogHelper.delete(groupId.hashCode(), unitId.hashCode());
-            long t2 = System.currentTimeMillis();
-            log.debug("event-clear-over ok:{} ->{},time:{}", res, groupId, (t2 - t1));
-        });
+        log.debug("event-clear-start->{}", groupId);
+        AspectLog txLog = new AspectLog();
+        txLog.setGroupId(groupId);
+        txLog.setUnitId(unitId);
+        aspectLogWriter.delete(txLog);
+    }
+
+    @Override
+    public TransactionInfo getTransactionInfo(String groupId, String unitId) {
+        AspectLog txLog = txLogHelper.getTxLog(groupId, unitId);
+        if (Objects.isNull(txLog)) {
+            return null;
+        }
+        try {
+            return aspectLogCodec.decode(txLog.getBytes());
+        } catch (SerializerException e) {
+            log.error("deserialize aspect log error.", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        txLogHelper.init();
+    }
+
+    private void awaitIfDurable(CompletableFuture<Boolean> future, String groupId) {
+        if (aspectLogDbProperties.getDurability() != AspectLogDurability.SYNC) {
+            return;
+        }
+        boolean res;
+        try {
+            res = future.get(aspectLogDbProperties.getSyncTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while saving aspect log. groupId: " + groupId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("aspect log save error. groupId: " + groupId, e);
+        }
+        log.debug("event-save-over ok:{} ->{}", res, groupId);
+        if (!res) {
+            throw new IllegalStateException("aspect log save failed. groupId: " + groupId);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        // 等待队列中的日志写完
+        aspectLogWriter.close(10, TimeUnit.MINUTES);
     }
 }
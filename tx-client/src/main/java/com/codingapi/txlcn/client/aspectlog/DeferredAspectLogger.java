@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import com.codingapi.txlcn.commons.exception.SerializerException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Description: 延迟持久化的切面日志。切面信息先保存在内存中，
+ * 事务单元在时间窗口内未被清理或与TxManager断开连接时才写入底层存储。
+ * 切面信息在调用线程编码保存，业务代码之后修改参数对象不影响日志内容。
+ * 底层存储经构造器注入，Spring 在本对象关闭（写出全部未清理日志）之后才关闭底层存储
+ *
+ * @see AspectLogger
+ */
+@Component
+@Primary
+@Slf4j
+public class DeferredAspectLogger implements AspectLogger, DisposableBean {
+
+    /**
+     * 底层切面日志存储的限定名
+     */
+    public static final String STORAGE_QUALIFIER = "aspectLogStorage";
+
+    private final AspectLogger storage;
+
+    private final AspectLogCodec aspectLogCodec;
+
+    private final long deferredWindow;
+
+    private final int deferredCapacity;
+
+    private final Map<String, PendingLog> pendingLogs = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Autowired
+    public DeferredAspectLogger(@Qualifier(STORAGE_QUALIFIER) AspectLogger storage,
+                                AspectLogDbProperties aspectLogDbProperties, AspectLogCodec aspectLogCodec) {
+        this.storage = storage;
+        this.aspectLogCodec = aspectLogCodec;
+        this.deferredWindow = aspectLogDbProperties.getDeferredWindow();
+        this.deferredCapacity = aspectLogDbProperties.getDeferredCapacity();
+        if (deferredWindow > 0) {
+            long period = Math.max(deferredWindow / 2, 1);
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "txlcn-aspect-log-deferred"));
+            this.flushExecutor.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.flushExecutor = null;
+        }
+    }
+
+    @Override
+    public void trace(String groupId, String unitId, TransactionInfo transactionInfo) {
+        if (deferredWindow <= 0 || closed.get() || pendingLogs.size() >= deferredCapacity) {
+            storage.trace(groupId, unitId, transactionInfo);
+            return;
+        }
+        // 编码保存本次调用时的参数状态
+        byte[] bytes;
+        try {
+            bytes = aspectLogCodec.encode(transactionInfo);
+        } catch (SerializerException e) {
+            log.error("serialize aspect log error.", e);
+            return;
+        }
+        pendingLogs.put(key(groupId, unitId), new PendingLog(groupId, unitId, bytes, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void clearLog(String groupId, String unitId) {
+        if (pendingLogs.remove(key(groupId, unitId)) != null) {
+            return;
+        }
+        storage.clearLog(groupId, unitId);
+    }
+
+    @Override
+    public TransactionInfo getTransactionInfo(String groupId, String unitId) {
+        PendingLog pendingLog = pendingLogs.get(key(groupId, unitId));
+        if (pendingLog != null) {
+            return decode(pendingLog);
+        }
+        return storage.getTransactionInfo(groupId, unitId);
+    }
+
+    /**
+     * 立即持久化所有未清理的切面日志。与TxManager断开连接时调用
+     */
+    public void flush() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flushExpired() {
+        try {
+            flush(System.currentTimeMillis() - deferredWindow);
+        } catch (Throwable e) {
+            log.error("flush deferred aspect log error.", e);
+        }
+    }
+
+    private void flush(long tracedBefore) {
+        for (PendingLog pendingLog : pendingLogs.values()) {
+            if (pendingLog.time > tracedBefore) {
+                continue;
+            }
+            // 在映射锁内写入，保证并发的clearLog在写入之后才清理底层存储
+            pendingLogs.computeIfPresent(key(pendingLog.groupId, pendingLog.unitId), (k, v) -> {
+                if (v != pendingLog) {
+                    return v;
+                }
+                TransactionInfo transactionInfo = decode(v);
+                if (transactionInfo == null) {
+                    return null;
+                }
+                try {
+                    storage.trace(v.groupId, v.unitId, transactionInfo);
+                } catch (Exception e) {
+                    // 写入失败的日志保留，下一次刷写重试
+                    log.error("persist deferred aspect log error. groupId: {}, unitId: {}", v.groupId, v.unitId, e);
+                    return v;
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        // 关闭后的切面日志直接写入底层存储，最后一次刷写之后不再有延迟的日志
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        flush();
+        if (!pendingLogs.isEmpty()) {
+            log.error("{} deferred aspect logs not persisted at shutdown.", pendingLogs.size());
+        }
+    }
+
+    private TransactionInfo decode(PendingLog pendingLog) {
+        try {
+            return aspectLogCodec.decode(pendingLog.bytes);
+        } catch (SerializerException e) {
+            log.error("deserialize aspect log error. groupId: {}, unitId: {}", pendingLog.groupId, pendingLog.unitId, e);
+            return null;
+        }
+    }
+
+    private static String key(String groupId, String unitId) {
+        return groupId + '#' + unitId;
+    }
+
+    private static class PendingLog {
+        private final String groupId;
+        private final String unitId;
+        private final byte[] bytes;
+        private final long time;
+
+        private PendingLog(String groupId, String unitId, byte[] bytes, long time) {
+            this.groupId = groupId;
+            this.unitId = unitId;
+            this.bytes = bytes;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: 切面日志组提交写入器。在一个短时间窗口内收集保存操作，
+ * 以一次JDBC批量和一次提交写入H2。删除操作延迟到清理周期或下一次保存时合并执行
+ */
+@Slf4j
+public class GroupCommitAspectLogWriter {
+
+    private final AspectLogHelper txLogHelper;
+
+    private final BlockingQueue<Op> queue;
+
+    private final long flushIntervalNanos;
+
+    private final int batchSize;
+
+    private final long cleanIntervalNanos;
+
+    /**
+     * 延迟执行的删除操作 groupId+unitId -> op. 仅写入线程访问
+     */
+    private final Map<String, Op> pendingDeletes = new LinkedHashMap<>();
+
+    private long lastCleanTime = System.nanoTime();
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    public GroupCommitAspectLogWriter(AspectLogHelper txLogHelper, AspectLogDbProperties properties) {
+        this.txLogHelper = txLogHelper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1));
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(properties.getFlushInterval(), 0));
+        this.batchSize = Math.max(properties.getBatchSize(), 1);
+        this.cleanIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(properties.getCleanInterval(), 0));
+        this.writerThread = new Thread(this::writeLoop, "txlcn-aspect-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 提交保存操作
+     *
+     * @param aspectLog aspectLog
+     * @return 组提交完成时结束的Future
+     */
+    public CompletableFuture<Boolean> save(AspectLog aspectLog) {
+        return enqueue(new Op(true, aspectLog));
+    }
+
+    /**
+     * 提交删除操作
+     *
+     * @param aspectLog 仅需groupId, unitId
+     * @return 组提交完成时结束的Future
+     */
+    public CompletableFuture<Boolean> delete(AspectLog aspectLog) {
+        return enqueue(new Op(false, aspectLog));
+    }
+
+    private CompletableFuture<Boolean> enqueue(Op op) {
+        if (!running) {
+            log.error("aspect log writer closed, drop aspect log. groupId: {}, unitId: {}",
+                    op.aspectLog.getGroupId(), op.aspectLog.getUnitId());
+            op.future.complete(false);
+            return op.future;
+        }
+        try {
+            queue.put(op);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            op.future.complete(false);
+        }
+        return op.future;
+    }
+
+    private void writeLoop() {
+        List<Op> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Op first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + flushIntervalNanos;
+                    while (batch.size() < batchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        Op next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            flush(batch, !running || System.nanoTime() - lastCleanTime >= cleanIntervalNanos);
+            batch.clear();
+        }
+        // 停止前执行剩余的延迟删除
+        flush(batch, true);
+        if (!pendingDeletes.isEmpty()) {
+            log.error("aspect log writer closed with {} deletes not executed.", pendingDeletes.size());
+            pendingDeletes.values().forEach(op -> op.future.complete(false));
+            pendingDeletes.clear();
+        }
+    }
+
+    private void flush(List<Op> batch, boolean cleanDue) {
+        // 按操作顺序合并：删除抵消同批次中之前的保存
+        Map<String, Op> saves = new LinkedHashMap<>();
+        List<Op> completed = new ArrayList<>(batch.size());
+        for (Op op : batch) {
+            String key = op.aspectLog.getGroupId() + op.aspectLog.getUnitId();
+            if (op.save) {
+                // 同一事务单元的后一次保存覆盖前一次，被覆盖的保存随本次提交完成
+                Op replaced = saves.put(key, op);
+                if (replaced != null) {
+                    completed.add(replaced);
+                }
+            } else {
+                Op canceled = saves.remove(key);
+                if (canceled != null) {
+                    completed.add(canceled);
+                }
+                Op replaced = pendingDeletes.put(key, op);
+                if (replaced != null) {
+                    op.future.thenAccept(replaced.future::complete);
+                }
+            }
+        }
+
+        // 保存与待删除记录冲突，或清理周期已到时，删除随本次提交执行
+        boolean flushDeletes = cleanDue || pendingDeletes.size() >= batchSize;
+        if (!flushDeletes) {
+            for (String key : saves.keySet()) {
+                if (pendingDeletes.containsKey(key)) {
+                    flushDeletes = true;
+                    break;
+                }
+            }
+        }
+        if (saves.isEmpty() && (!flushDeletes || pendingDeletes.isEmpty())) {
+            completed.forEach(op -> op.future.complete(true));
+            return;
+        }
+
+        long t1 = System.currentTimeMillis();
+        List<AspectLog> saveLogs = new ArrayList<>(saves.size());
+        saves.values().forEach(op -> saveLogs.add(op.aspectLog));
+        List<AspectLog> deleteLogs = new ArrayList<>(flushDeletes ? pendingDeletes.size() : 0);
+        if (flushDeletes) {
+            pendingDeletes.values().forEach(op -> deleteLogs.add(op.aspectLog));
+        }
+        boolean res;
+        try {
+            res = txLogHelper.batch(saveLogs, deleteLogs);
+        } catch (Throwable e) {
+            log.error("aspect log group commit error.", e);
+            res = false;
+        }
+        completed.addAll(saves.values());
+        if (flushDeletes) {
+            lastCleanTime = System.nanoTime();
+            // 失败时保留延迟删除，下一次提交重试
+            if (res) {
+                completed.addAll(pendingDeletes.values());
+                pendingDeletes.clear();
+            }
+        }
+        for (Op op : completed) {
+            op.future.complete(res);
+        }
+        log.debug("aspect log group commit ok:{} saved:{} deleted:{} time:{}",
+                res, saveLogs.size(), deleteLogs.size(), System.currentTimeMillis() - t1);
+    }
+
+    /**
+     * 停止接收并写完剩余操作
+     *
+     * @param timeout timeout
+     * @param unit    unit
+     */
+    public void close(long timeout, TimeUnit unit) {
+        running = false;
+        try {
+            writerThread.join(unit.toMillis(timeout));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Op {
+        private final boolean save;
+        private final AspectLog aspectLog;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Op(boolean save, AspectLog aspectLog) {
+            this.save = save;
+            this.aspectLog = aspectLog;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Description: 基于内存映射段文件的追加写切面日志存储。
+ * <p>
+ * 记录格式: [int length][int crc32][body]，body首字节为记录类型。
+ * 删除写入墓碑记录，内存索引 (groupId, unitId) -> 位置。已封存的段在存活数据比例过低时压缩：
+ * 存活记录与仍有效的墓碑追加到活动段后删除原段文件。
+ */
+@Slf4j
+public class MappedAspectLogStore {
+
+    private static final byte TYPE_PUT = 1;
+
+    private static final byte TYPE_TOMBSTONE = 2;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final File dir;
+
+    private final int segmentSize;
+
+    private final boolean force;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final Map<String, Location> index = new HashMap<>();
+
+    private Segment active;
+
+    public MappedAspectLogStore(File dir, int segmentSize, boolean force) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.force = force;
+    }
+
+    /**
+     * 打开存储，回放所有段文件重建索引
+     *
+     * @throws IOException IOException
+     */
+    public synchronized void open() throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("can't create aspect log dir: " + dir);
+        }
+        File[] files = Optional.ofNullable(dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX))).orElse(new File[0]);
+        List<Long> ids = new ArrayList<>(files.length);
+        for (File file : files) {
+            ids.add(Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length())));
+        }
+        Collections.sort(ids);
+        for (Long id : ids) {
+            Segment segment = mapSegment(id);
+            segments.put(id, segment);
+            replay(segment);
+        }
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            active = segments.lastEntry().getValue();
+            // 清除活动段中未完整写入的尾部
+            ByteBuffer tail = active.buffer.duplicate();
+            tail.position(active.position);
+            while (tail.hasRemaining()) {
+                tail.put((byte) 0);
+            }
+        }
+        for (Location location : index.values()) {
+            segments.get(location.segmentId).liveBytes += location.length;
+        }
+        log.info("aspect log store opened at {}, segments: {}, records: {}", dir, segments.size(), index.size());
+    }
+
+    /**
+     * 保存切面日志
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @param bytes   切面序列化数据
+     * @param time    保存时间
+     * @throws IOException IOException
+     */
+    public synchronized void put(String groupId, String unitId, byte[] bytes, long time) throws IOException {
+        byte[] g = groupId.getBytes(StandardCharsets.UTF_8);
+        byte[] u = unitId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + 2 + g.length + 2 + u.length + 4 + bytes.length);
+        body.put(TYPE_PUT).putLong(time)
+                .putShort((short) g.length).put(g)
+                .putShort((short) u.length).put(u)
+                .putInt(bytes.length).put(bytes);
+        Location location = append(body.array());
+        Location old = index.put(key(groupId, unitId), location);
+        if (old != null) {
+            release(old);
+        }
+    }
+
+    /**
+     * 删除切面日志（写墓碑）
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @throws IOException IOException
+     */
+    public synchronized void remove(String groupId, String unitId) throws IOException {
+        Location old = index.remove(key(groupId, unitId));
+        if (old == null) {
+            return;
+        }
+        release(old);
+        byte[] g = groupId.getBytes(StandardCharsets.UTF_8);
+        byte[] u = unitId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + 2 + g.length + 2 + u.length);
+        body.put(TYPE_TOMBSTONE).putLong(old.segmentId)
+                .putShort((short) g.length).put(g)
+                .putShort((short) u.length).put(u);
+        append(body.array());
+    }
+
+    /**
+     * 获取切面序列化数据
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @return bytes，不存在时为null
+     */
+    public synchronized byte[] get(String groupId, String unitId) {
+        Location location = index.get(key(groupId, unitId));
+        if (location == null) {
+            return null;
+        }
+        return decode(segments.get(location.segmentId).buffer, location.offset).bytes;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * 压缩已封存且存活数据比例低于阈值的段
+     *
+     * @param liveRatio 存活比例阈值
+     * @throws IOException IOException
+     */
+    public synchronized void compact(double liveRatio) throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment != active && segment.liveBytes < segment.position * liveRatio) {
+                candidates.add(segment);
+            }
+        }
+        for (Segment segment : candidates) {
+            int moved = 0;
+            int offset = 0;
+            while (offset < segment.position) {
+                Record record = decode(segment.buffer, offset);
+                String key = key(record.groupId, record.unitId);
+                boolean keep;
+                if (record.type == TYPE_PUT) {
+                    Location location = index.get(key);
+                    keep = location != null && location.segmentId == segment.id && location.offset == offset;
+                } else {
+                    // 被删除记录所在段仍存在时需保留墓碑
+                    keep = record.target != segment.id && segments.containsKey(record.target);
+                }
+                if (keep) {
+                    byte[] body = new byte[record.length - HEADER_SIZE];
+                    ByteBuffer src = segment.buffer.duplicate();
+                    src.position(offset + HEADER_SIZE);
+                    src.get(body);
+                    Location location = append(body);
+                    if (record.type == TYPE_PUT) {
+                        index.put(key, location);
+                    }
+                    moved++;
+                }
+                offset += record.length;
+            }
+            segments.remove(segment.id);
+            unmap(segment.buffer);
+            if (!segment.file.delete()) {
+                log.warn("can't delete compacted aspect log segment {}", segment.file);
+            }
+            log.debug("compacted aspect log segment {}, moved records: {}", segment.id, moved);
+        }
+    }
+
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            unmap(segment.buffer);
+        }
+        segments.clear();
+        index.clear();
+        active = null;
+    }
+
+    private Location append(byte[] body) throws IOException {
+        if (active == null) {
+            throw new IOException("aspect log store closed.");
+        }
+        int length = HEADER_SIZE + body.length;
+        if (length > segmentSize) {
+            throw new IOException("aspect log record too large: " + length);
+        }
+        if (active.position + length > segmentSize) {
+            roll();
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        ByteBuffer dst = active.buffer.duplicate();
+        dst.position(active.position);
+        dst.putInt(body.length).putInt((int) crc32.getValue()).put(body);
+        if (force) {
+            active.buffer.force();
+        }
+        Location location = new Location(active.id, active.position, length);
+        active.position += length;
+        if (body[0] == TYPE_PUT) {
+            active.liveBytes += length;
+        }
+        return location;
+    }
+
+    private void release(Location location) {
+        Segment segment = segments.get(location.segmentId);
+        if (segment != null) {
+            segment.liveBytes -= location.length;
+        }
+    }
+
+    private void roll() throws IOException {
+        long id = active == null ? 0 : active.id + 1;
+        Segment segment = mapSegment(id);
+        segments.put(id, segment);
+        active = segment;
+    }
+
+    private Segment mapSegment(long id) throws IOException {
+        File file = new File(dir, String.format("%020d%s", id, SEGMENT_SUFFIX));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            long size = Math.max(channel.size(), segmentSize);
+            return new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int bodyLength = buffer.getInt(offset);
+            if (bodyLength <= 0 || offset + HEADER_SIZE + bodyLength > buffer.capacity()) {
+                break;
+            }
+            byte[] body = new byte[bodyLength];
+            ByteBuffer src = buffer.duplicate();
+            src.position(offset + HEADER_SIZE);
+            src.get(body);
+            CRC32 crc32 = new CRC32();
+            crc32.update(body);
+            if ((int) crc32.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("aspect log segment {} broken at {}, ignore the rest.", segment.id, offset);
+                break;
+            }
+            Record record = decode(buffer, offset);
+            if (record.type == TYPE_PUT) {
+                index.put(key(record.groupId, record.unitId), new Location(segment.id, offset, record.length));
+            } else {
+                // 压缩移动的墓碑可能位于同键更新记录之后，只删除其指向段中的记录
+                String key = key(record.groupId, record.unitId);
+                Location location = index.get(key);
+                if (location != null && location.segmentId == record.target) {
+                    index.remove(key);
+                }
+            }
+            offset += record.length;
+        }
+        segment.position = offset;
+    }
+
+    private static Record decode(ByteBuffer buffer, int offset) {
+        ByteBuffer src = buffer.duplicate();
+        src.position(offset);
+        Record record = new Record();
+        record.length = HEADER_SIZE + src.getInt();
+        src.getInt();
+        record.type = src.get();
+        long timeOrTarget = src.getLong();
+        byte[] g = new byte[src.getShort()];
+        src.get(g);
+        byte[] u = new byte[src.getShort()];
+        src.get(u);
+        record.groupId = new String(g, StandardCharsets.UTF_8);
+        record.unitId = new String(u, StandardCharsets.UTF_8);
+        if (record.type == TYPE_PUT) {
+            record.bytes = new byte[src.getInt()];
+            src.get(record.bytes);
+        } else {
+            record.target = timeOrTarget;
+        }
+        return record;
+    }
+
+    private static String key(String groupId, String unitId) {
+        return groupId + '#' + unitId;
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            log.debug("can't unmap aspect log segment, left to gc.");
+        }
+    }
+
+    private static class Segment {
+        private final long id;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long liveBytes;
+
+        private Segment(long id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    private static class Location {
+        private final long segmentId;
+        private final int offset;
+        private final int length;
+
+        private Location(long segmentId, int offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class Record {
+        private int length;
+        private byte type;
+        private long target;
+        private String groupId;
+        private String unitId;
+        private byte[] bytes;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import com.codingapi.txlcn.commons.exception.SerializerException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Description: 基于内存映射追加写文件的切面日志。
+ * 由 Spring 按依赖顺序关闭，晚于 {@link DeferredAspectLogger} 的最后一次刷写
+ *
+ * @see AspectLogger
+ * @see MappedAspectLogStore
+ */
+@Component
+@Qualifier(DeferredAspectLogger.STORAGE_QUALIFIER)
+@Slf4j
+@ConditionalOnProperty(value = "tx-lcn.aspect.log.storage", havingValue = "mmap")
+public class MappedFileAspectLogger implements AspectLogger, InitializingBean, DisposableBean {
+
+    private static final double COMPACT_LIVE_RATIO = 0.5;
+
+    private final MappedAspectLogStore store;
+
+    private final AspectLogDbProperties aspectLogDbProperties;
+
+    private final AspectLogCodec aspectLogCodec;
+
+    private final ScheduledExecutorService compactExecutor =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "txlcn-aspect-log-compact"));
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Autowired
+    public MappedFileAspectLogger(AspectLogDbProperties aspectLogDbProperties, AspectLogCodec aspectLogCodec) {
+        this.aspectLogDbProperties = aspectLogDbProperties;
+        this.aspectLogCodec = aspectLogCodec;
+        this.store = new MappedAspectLogStore(new File(aspectLogDbProperties.getFilePath() + "-aspect-log"),
+                aspectLogDbProperties.getSegmentSize(),
+                aspectLogDbProperties.getDurability() == AspectLogDurability.SYNC);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        store.open();
+        long interval = aspectLogDbProperties.getCompactInterval();
+        compactExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                store.compact(COMPACT_LIVE_RATIO);
+            } catch (Throwable e) {
+                log.error("aspect log compact error.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void trace(String groupId, String unitId, TransactionInfo transactionInfo) {
+        try {
+            byte[] bytes = aspectLogCodec.encode(transactionInfo);
+            store.put(groupId, unitId, bytes, System.currentTimeMillis());
+        } catch (SerializerException | IOException e) {
+            log.error("save aspect log error.", e);
+        }
+    }
+
+    @Override
+    public void clearLog(String groupId, String unitId) {
+        try {
+            store.remove(groupId, unitId);
+        } catch (IOException e) {
+            log.error("clear aspect log error.", e);
+        }
+    }
+
+    @Override
+    public TransactionInfo getTransactionInfo(String groupId, String unitId) {
+        byte[] bytes = store.get(groupId, unitId);
+        if (Objects.isNull(bytes)) {
+            return null;
+        }
+        try {
+            return aspectLogCodec.decode(bytes);
+        } catch (SerializerException e) {
+            log.error("deserialize aspect log error.", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        compactExecutor.shutdown();
+        compactExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        store.close();
+    }
+}
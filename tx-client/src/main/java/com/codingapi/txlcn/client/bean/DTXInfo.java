@@ -17,49 +17,31 @@ package com.codingapi.txlcn.client.bean;
 
 import com.codingapi.txlcn.commons.annotation.DTXPropagation;
 import com.codingapi.txlcn.commons.bean.TransactionInfo;
-import com.codingapi.txlcn.commons.util.Transactions;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 
 import java.lang.reflect.Method;
 
 /**
- * Description:
+ * Description: 单次调用的分布式事务信息，由 {@link DTXMethodDescriptor} 创建，不在调用间共享
  * Date: 19-1-11 下午1:21
  *
  * @author ujued
  */
 @AllArgsConstructor
-@Data
+@Getter
 public class DTXInfo {
 
-    private String transactionType;
+    private final String transactionType;
 
-    private DTXPropagation transactionPropagation;
+    private final DTXPropagation transactionPropagation;
 
-    private TransactionInfo transactionInfo;
+    private final TransactionInfo transactionInfo;
 
     /**
      * 用户实例对象的业务方法（包含注解信息）
      */
-    private Method businessMethod;
+    private final Method businessMethod;
 
-    private String unitId;
-
-    public DTXInfo(Method method, Object[] args, Class<?> targetClass) {
-        this.transactionInfo = new TransactionInfo();
-        this.transactionInfo.setTargetClazz(targetClass);
-        this.transactionInfo.setArgumentValues(args);
-        this.transactionInfo.setMethod(method.getName());
-        this.transactionInfo.setMethodStr(method.toString());
-        this.transactionInfo.setParameterTypes(method.getParameterTypes());
-
-        this.businessMethod = method;
-        this.unitId = Transactions.unitId(method.toString());
-    }
-
-    public void reanalyseMethodArgs(Object[] args) {
-        this.transactionInfo.setArgumentValues(args);
-    }
-
-}
\ No newline at end of file
+    private final String unitId;
+}
@@ -17,20 +17,25 @@ package com.codingapi.txlcn.client.bean;
 
 
 import com.codingapi.txlcn.client.core.tcc.control.TccTransactionCleanService;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Objects;
 
 /**
  * 分布式事务远程调用控制对象
+ * 线程变量不再被子线程继承，跨线程需经 {@link DTXLocals} 显式传播。
+ * 每个线程复用一个实例，清理时重置而非丢弃
  * Created by lorne on 2017/6/5.
  */
 @Data
 @Slf4j
 public class DTXLocal {
 
-    private final static ThreadLocal<DTXLocal> currentLocal = new InheritableThreadLocal<DTXLocal>();
+    private final static ThreadLocal<Slot> currentLocal = ThreadLocal.withInitial(Slot::new);
 
     /**
      * 事务类型
@@ -93,6 +98,13 @@ public class DTXLocal {
      */
     private boolean proxyTmp;
 
+    /**
+     * 已传播到其他线程，不可回收复用
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile boolean shared;
+
 
     private boolean isProxyTmp() {
         return proxyTmp;
@@ -110,7 +122,7 @@ public class DTXLocal {
      * @return 当前线程变量
      */
     public static DTXLocal cur() {
-        return currentLocal.get();
+        return currentLocal.get().current;
     }
 
     /**
@@ -119,17 +131,23 @@ public class DTXLocal {
      * @return 当前线程变量
      */
     public static DTXLocal getOrNew() {
-        if (currentLocal.get() == null) {
-            currentLocal.set(new DTXLocal());
+        Slot slot = currentLocal.get();
+        if (slot.current == null) {
+            if (slot.spare != null) {
+                slot.current = slot.spare;
+                slot.spare = null;
+            } else {
+                slot.current = new DTXLocal();
+            }
         }
-        return currentLocal.get();
+        return slot.current;
     }
 
     /**
      * 设置代理资源
      */
     public static void makeProxy() {
-        if (currentLocal.get() != null) {
+        if (cur() != null) {
             cur().proxyTmp = cur().proxy;
             cur().proxy = true;
         }
@@ -139,7 +157,7 @@ public class DTXLocal {
      * 设置不代理资源
      */
     public static void makeUnProxy() {
-        if (currentLocal.get() != null) {
+        if (cur() != null) {
             cur().proxyTmp = cur().proxy;
             cur().proxy = false;
         }
@@ -149,7 +167,7 @@ public class DTXLocal {
      * 撤销到上一步的资源代理状态
      */
     public static void undoProxyStatus() {
-        if (currentLocal.get() != null) {
+        if (cur() != null) {
             cur().proxy = cur().proxyTmp;
         }
     }
@@ -158,10 +176,56 @@ public class DTXLocal {
      * 清理线程变量
      */
     public static void makeNeverAppeared() {
-        if (currentLocal.get() != null) {
-            log.debug("clean thread local[{}]: {}", DTXLocal.class.getSimpleName(), cur());
-            currentLocal.set(null);
+        Slot slot = currentLocal.get();
+        DTXLocal dtxLocal = slot.current;
+        if (dtxLocal != null) {
+            log.debug("clean thread local[{}]: {}", DTXLocal.class.getSimpleName(), dtxLocal);
+            slot.current = null;
+            if (!dtxLocal.shared) {
+                dtxLocal.reset();
+                slot.spare = dtxLocal;
+            }
+        }
+    }
+
+    /**
+     * 标记为跨线程共享并返回当前线程变量
+     *
+     * @return 当前线程变量，可能为 null
+     */
+    static DTXLocal share() {
+        DTXLocal dtxLocal = cur();
+        if (dtxLocal != null) {
+            dtxLocal.shared = true;
         }
+        return dtxLocal;
+    }
+
+    /**
+     * 替换当前线程变量，供跨线程传播使用
+     *
+     * @param dtxLocal 新的线程变量
+     * @return 被替换的线程变量
+     */
+    static DTXLocal replace(DTXLocal dtxLocal) {
+        Slot slot = currentLocal.get();
+        DTXLocal previous = slot.current;
+        slot.current = dtxLocal;
+        return previous;
+    }
+
+    private void reset() {
+        this.transactionType = null;
+        this.groupId = null;
+        this.unitId = null;
+        this.resource = null;
+        this.inUnit = false;
+        this.attachment = null;
+        this.sysTransactionState = 1;
+        this.userTransactionState = -1;
+        this.proxy = false;
+        this.justNow = false;
+        this.proxyTmp = false;
     }
 
     /**
@@ -170,7 +234,15 @@ public class DTXLocal {
      * @return 1 commit 0 rollback
      */
     public static int transactionState() {
-        DTXLocal dtxLocal = Objects.requireNonNull(currentLocal.get(), "DTX can't be null.");
+        DTXLocal dtxLocal = Objects.requireNonNull(cur(), "DTX can't be null.");
         return dtxLocal.userTransactionState == -1 ? dtxLocal.sysTransactionState : dtxLocal.userTransactionState;
     }
+
+    /**
+     * 线程内的当前实例与可复用实例
+     */
+    private static class Slot {
+        private DTXLocal current;
+        private DTXLocal spare;
+    }
 }
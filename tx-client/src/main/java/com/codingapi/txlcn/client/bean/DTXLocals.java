@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.bean;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Description: {@link DTXLocal} 跨线程显式传播
+ * 被包装的任务在执行线程上共享提交线程的 {@link DTXLocal}，执行结束后恢复执行线程原有状态
+ */
+public final class DTXLocals {
+
+    private DTXLocals() {
+    }
+
+    public static Runnable wrap(Runnable runnable) {
+        Objects.requireNonNull(runnable);
+        DTXLocal captured = DTXLocal.share();
+        if (captured == null) {
+            return runnable;
+        }
+        return () -> {
+            DTXLocal previous = DTXLocal.replace(captured);
+            try {
+                runnable.run();
+            } finally {
+                DTXLocal.replace(previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        Objects.requireNonNull(callable);
+        DTXLocal captured = DTXLocal.share();
+        if (captured == null) {
+            return callable;
+        }
+        return () -> {
+            DTXLocal previous = DTXLocal.replace(captured);
+            try {
+                return callable.call();
+            } finally {
+                DTXLocal.replace(previous);
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Objects.requireNonNull(supplier);
+        DTXLocal captured = DTXLocal.share();
+        if (captured == null) {
+            return supplier;
+        }
+        return () -> {
+            DTXLocal previous = DTXLocal.replace(captured);
+            try {
+                return supplier.get();
+            } finally {
+                DTXLocal.replace(previous);
+            }
+        };
+    }
+
+    /**
+     * 包装执行器，提交时捕获提交线程的 {@link DTXLocal}
+     *
+     * @param executor executor
+     * @return 传播 {@link DTXLocal} 的执行器
+     */
+    public static Executor wrap(Executor executor) {
+        Objects.requireNonNull(executor);
+        return command -> executor.execute(wrap(command));
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable runnable, Executor executor) {
+        return CompletableFuture.runAsync(wrap(runnable), executor);
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(wrap(supplier), executor);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.bean;
+
+import com.codingapi.txlcn.commons.annotation.*;
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import com.codingapi.txlcn.commons.util.Transactions;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * Description: 分布式事务方法的不可变描述，每个业务方法只解析一次。
+ * unitId、方法签名、事务类型、传播行为都在此预先计算，调用期只需附上参数。
+ */
+@Getter
+public final class DTXMethodDescriptor {
+
+    private final Class<?> targetClass;
+
+    /**
+     * 用户实例对象的业务方法（包含注解信息）
+     */
+    private final Method businessMethod;
+
+    private final String methodName;
+
+    private final String methodStr;
+
+    private final Class<?>[] parameterTypes;
+
+    private final String unitId;
+
+    /**
+     * 注解声明的事务类型，无注解时为 null
+     */
+    private final String transactionType;
+
+    private final DTXPropagation transactionPropagation;
+
+    public DTXMethodDescriptor(Method businessMethod, Class<?> targetClass) {
+        this.targetClass = targetClass;
+        this.businessMethod = businessMethod;
+        this.methodName = businessMethod.getName();
+        this.methodStr = businessMethod.toString();
+        this.parameterTypes = businessMethod.getParameterTypes();
+        this.unitId = Transactions.unitId(this.methodStr);
+
+        String type = null;
+        DTXPropagation propagation = DTXPropagation.REQUIRED;
+        TxTransaction txTransaction = businessMethod.getAnnotation(TxTransaction.class);
+        LcnTransaction lcnTransaction;
+        TxcTransaction txcTransaction;
+        TccTransaction tccTransaction;
+        if (Objects.nonNull(txTransaction)) {
+            type = txTransaction.type();
+            propagation = txTransaction.propagation();
+        } else if (Objects.nonNull(lcnTransaction = businessMethod.getAnnotation(LcnTransaction.class))) {
+            type = Transactions.LCN;
+            propagation = lcnTransaction.propagation();
+        } else if (Objects.nonNull(txcTransaction = businessMethod.getAnnotation(TxcTransaction.class))) {
+            type = Transactions.TXC;
+            propagation = txcTransaction.propagation();
+        } else if (Objects.nonNull(tccTransaction = businessMethod.getAnnotation(TccTransaction.class))) {
+            type = Transactions.TCC;
+            propagation = tccTransaction.propagation();
+        }
+        this.transactionType = type;
+        this.transactionPropagation = propagation;
+    }
+
+    /**
+     * 以注解声明的事务属性创建本次调用的事务信息
+     *
+     * @param args 本次调用参数
+     * @return DTXInfo
+     */
+    public DTXInfo newInfo(Object[] args) {
+        return newInfo(args, transactionType, transactionPropagation);
+    }
+
+    /**
+     * 以指定的事务属性创建本次调用的事务信息
+     *
+     * @param args            本次调用参数
+     * @param transactionType 事务类型
+     * @param propagation     传播行为
+     * @return DTXInfo
+     */
+    public DTXInfo newInfo(Object[] args, String transactionType, DTXPropagation propagation) {
+        TransactionInfo transactionInfo = new TransactionInfo(targetClass, methodName, methodStr, args, parameterTypes);
+        return new DTXInfo(transactionType, propagation, transactionInfo, businessMethod, unitId);
+    }
+}
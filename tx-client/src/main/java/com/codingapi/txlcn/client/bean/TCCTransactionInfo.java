@@ -15,6 +15,7 @@
  */
 package com.codingapi.txlcn.client.bean;
 
+import com.codingapi.txlcn.client.core.tcc.TccMethodInvoker;
 import lombok.Data;
 
 /**
@@ -53,6 +54,11 @@ public class TCCTransactionInfo {
      */
     private  Class [] methodTypeParameter;
 
+    /**
+     *  已解析的 confirm/cancel 调用器
+     */
+    private TccMethodInvoker invoker;
+
 
 
 }
@@ -37,6 +37,9 @@ public class TxClientConfig {
     public TxClientConfig() {
         this.dtxAspectOrder = 0;
         this.dtxTime = 30 * 1000;
+        this.tccInfoCacheSize = 10000;
+        this.txcStatementCacheSize = 1024;
+        this.txcTableStructTtl = 5 * 60 * 1000;
         this.managerAddress = Collections.singletonList("127.0.0.1:8070");
     }
 
@@ -69,4 +72,68 @@ public class TxClientConfig {
      */
     private long dtxTime;
 
+    /**
+     * 乐观事务组模式：创建事务组异步发往 TxManager，与发起方业务执行重叠，
+     * 通知事务组前等待其结果。参与方仍同步加入，需 TxManager 支持加入时创建事务组
+     */
+    private boolean optimisticGroup;
+
+    /**
+     * LCN 事务每个数据源最多同时持有的连接数，0 不限制
+     */
+    private int lcnMaxHeldConnections;
+
+    /**
+     * LCN 持有连接数达到上限时的排队等待时间 (ms)，0 立即失败
+     */
+    private long lcnHeldConnectionWait;
+
+    /**
+     * LCN 事务通知提交线程数，0 为处理器数（至少 2）
+     */
+    private int lcnCommitThreads;
+
+    /**
+     * 一阶段事务组：发起方不预先在 TxManager 创建事务组，由首个参与方加入时创建。
+     * 无其他参与方时发起方只需一次通知事务组即可提交，需 TxManager 同时支持
+     */
+    private boolean onePhaseGroup;
+
+    /**
+     * 未通知的 TCC 事务单元最大缓存数，超出或超时的单元交由切面日志保存
+     */
+    private int tccInfoCacheSize;
+
+    /**
+     * TCC confirm/cancel 执行线程数，0 为处理器数（至少 2）
+     */
+    private int tccConfirmThreads;
+
+    /**
+     * 每个 confirm/cancel 方法的最大并发数，0 不限制
+     */
+    private int tccConfirmConcurrency;
+
+    /**
+     * 等待 confirm/cancel 完成的超时时间 (ms)，0 为分布式事务超时时间
+     */
+    private long tccConfirmTimeout;
+
+    /**
+     * TXC 已解析 SQL 语句的最大缓存数，按占位符 SQL 缓存
+     */
+    private int txcStatementCacheSize;
+
+    /**
+     * TXC 表结构缓存过期时间 (ms)，0 不过期。经 TXC 代理执行的 DDL 会使缓存立即失效，
+     * 代理之外的变更（迁移脚本、其它节点的 DDL）只能等待过期，
+     * 或由应用调用 TableStructAnalyser#invalidate / #invalidateAll
+     */
+    private long txcTableStructTtl;
+
+    /**
+     * TXC 启动时预加载所有表的结构
+     */
+    private boolean txcPreloadTableStruct;
+
 }
@@ -17,7 +17,9 @@ package com.codingapi.txlcn.client.core.lcn.control;
 
 import com.codingapi.txlcn.client.bean.DTXLocal;
 import com.codingapi.txlcn.client.bean.TxTransactionInfo;
+import com.codingapi.txlcn.client.core.lcn.resource.LcnGroupConnections;
 import com.codingapi.txlcn.client.support.TXLCNTransactionControl;
+import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.template.TransactionCleanTemplate;
 import com.codingapi.txlcn.client.support.template.TransactionControlTemplate;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
@@ -46,13 +48,17 @@ public class LcnRunningTransaction implements TXLCNTransactionControl {
 
     private final TransactionControlTemplate transactionControlTemplate;
 
+    private final TransactionAttachmentCache transactionAttachmentCache;
+
     @Autowired
     public LcnRunningTransaction(TracerHelper tracerHelper,
                                  TransactionCleanTemplate transactionCleanTemplate,
-                                 TransactionControlTemplate transactionControlTemplate) {
+                                 TransactionControlTemplate transactionControlTemplate,
+                                 TransactionAttachmentCache transactionAttachmentCache) {
         this.tracerHelper = tracerHelper;
         this.transactionCleanTemplate = transactionCleanTemplate;
         this.transactionControlTemplate = transactionControlTemplate;
+        this.transactionAttachmentCache = transactionAttachmentCache;
     }
 
 
@@ -75,6 +81,25 @@ public class LcnRunningTransaction implements TXLCNTransactionControl {
 
     @Override
     public void onBusinessCodeSuccess(TxTransactionInfo info, Object result) throws TxClientException {
+        // 只读单元立即释放连接，不加入事务组。要求回滚的单元仍需加入事务组，由此通知 TM 回滚
+        Optional<LcnGroupConnections> groupConnections =
+                transactionAttachmentCache.attachment(info.getGroupId(), LcnGroupConnections.class);
+        boolean commit = DTXLocal.transactionState() == 1;
+        if (commit && !groupConnections.isPresent()) {
+            log.debug("lcn > read only unit: {}, skip join group.", info.getUnitId());
+            transactionAttachmentCache.removeAttachments(info.getGroupId(), info.getUnitId());
+            return;
+        }
+        if (commit && groupConnections.get().isReadOnly(info.getUnitId())) {
+            log.debug("lcn > read only unit: {}, release connection and skip join group.", info.getUnitId());
+            try {
+                transactionCleanTemplate.clean(info.getGroupId(), info.getUnitId(), info.getTransactionType(), 1);
+            } catch (TransactionClearException e) {
+                log.error("{} > clean transaction error.", Transactions.LCN);
+            }
+            return;
+        }
+
         log.debug("join group: [GroupId: {}, TxManager:{}, Method: {}]", info.getGroupId(),
                 Optional.ofNullable(tracerHelper.getTxManagerKey()).orElseThrow(() -> new RuntimeException("sleuth pass error.")),
                 info.getTransactionInfo().getMethodStr());
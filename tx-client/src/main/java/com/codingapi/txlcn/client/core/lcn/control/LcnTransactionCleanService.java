@@ -15,7 +15,7 @@
  */
 package com.codingapi.txlcn.client.core.lcn.control;
 
-import com.codingapi.txlcn.client.core.lcn.resource.LcnConnectionProxy;
+import com.codingapi.txlcn.client.core.lcn.resource.LcnGroupConnections;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
 import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.TransactionCleanService;
@@ -46,9 +46,9 @@ public class LcnTransactionCleanService implements TransactionCleanService {
 
     @Override
     public void clear(String groupId, int state, String unitId, String unitType) throws TransactionClearException {
-        Optional<LcnConnectionProxy> lcnConnectionProxy = transactionAttachmentCache.attachment(groupId, LcnConnectionProxy.class);
-        if (lcnConnectionProxy.isPresent()) {
-            if (lcnConnectionProxy.get().notify(state).equals(RpcResponseState.success)) {
+        Optional<LcnGroupConnections> groupConnections = transactionAttachmentCache.attachment(groupId, LcnGroupConnections.class);
+        if (groupConnections.isPresent()) {
+            if (groupConnections.get().notify(unitId, state).equals(RpcResponseState.success)) {
                 // 移除本地LCN事务相关对象
                 transactionAttachmentCache.removeAttachments(groupId, unitId);
                 return;
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.lcn.resource;
+
+import com.codingapi.txlcn.client.config.TxClientConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Description: LCN 连接持有预算。LCN 参与方的连接会被持有直到 TM 通知，
+ * 按数据源限制同时持有的连接数，避免连接池被分布式事务占满，并统计持有时长
+ */
+@Component
+@Slf4j
+public class LcnConnectionHoldBudget {
+
+    private final int maxHeldConnections;
+
+    private final long waitMillis;
+
+    private final Map<Object, Semaphore> permits = new ConcurrentHashMap<>();
+
+    private final AtomicLong heldConnections = new AtomicLong();
+
+    private final LongAdder releasedConnections = new LongAdder();
+
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    private final LongAdder holdTimeNanos = new LongAdder();
+
+    private final AtomicLong maxHoldTimeNanos = new AtomicLong();
+
+    @Autowired
+    public LcnConnectionHoldBudget(TxClientConfig clientConfig) {
+        this.maxHeldConnections = clientConfig.getLcnMaxHeldConnections();
+        this.waitMillis = clientConfig.getLcnHeldConnectionWait();
+    }
+
+    /**
+     * 为数据源申请一个持有名额
+     *
+     * @param dataSource dataSource
+     * @return 释放名额并记录持有时长，可重复调用
+     * @throws SQLException 超出预算时抛出
+     * @throws InterruptedException 排队等待被中断
+     */
+    public Runnable acquire(Object dataSource) throws SQLException, InterruptedException {
+        Semaphore semaphore = null;
+        if (maxHeldConnections > 0) {
+            semaphore = permits.computeIfAbsent(dataSource, k -> new Semaphore(maxHeldConnections));
+            boolean acquired = waitMillis > 0 ?
+                    semaphore.tryAcquire(waitMillis, TimeUnit.MILLISECONDS) : semaphore.tryAcquire();
+            if (!acquired) {
+                rejectedConnections.increment();
+                log.warn("lcn held connections reached limit {} on datasource: {}", maxHeldConnections, dataSource);
+                throw new SQLTransientConnectionException(
+                        "LCN held connections reached limit " + maxHeldConnections + ", try again later.");
+            }
+        }
+        heldConnections.incrementAndGet();
+        long start = System.nanoTime();
+        Semaphore held = semaphore;
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                long holdTime = System.nanoTime() - start;
+                holdTimeNanos.add(holdTime);
+                maxHoldTimeNanos.accumulateAndGet(holdTime, Math::max);
+                releasedConnections.increment();
+                heldConnections.decrementAndGet();
+                if (held != null) {
+                    held.release();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return 当前持有的连接数
+     */
+    public long getHeldConnections() {
+        return heldConnections.get();
+    }
+
+    /**
+     * @param dataSource dataSource
+     * @return 给定数据源当前持有的连接数，未限制时为 -1
+     */
+    public int getHeldConnections(Object dataSource) {
+        Semaphore semaphore = permits.get(dataSource);
+        if (maxHeldConnections <= 0) {
+            return -1;
+        }
+        return semaphore == null ? 0 : maxHeldConnections - semaphore.availablePermits();
+    }
+
+    /**
+     * @return 已释放的连接数
+     */
+    public long getReleasedConnections() {
+        return releasedConnections.sum();
+    }
+
+    /**
+     * @return 因超出预算被拒绝的连接数
+     */
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /**
+     * @return 已释放连接的平均持有时长 (ms)
+     */
+    public double getAverageHoldMillis() {
+        long released = releasedConnections.sum();
+        return released == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(holdTimeNanos.sum()) / 1000.0 / released;
+    }
+
+    /**
+     * @return 最长持有时长 (ms)
+     */
+    public long getMaxHoldMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxHoldTimeNanos.get());
+    }
+}
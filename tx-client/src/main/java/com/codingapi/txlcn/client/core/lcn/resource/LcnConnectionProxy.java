@@ -19,9 +19,13 @@ import com.codingapi.txlcn.spi.message.dto.RpcResponseState;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.*;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
 
 /**
  * @author lorne
@@ -29,10 +33,197 @@ import java.util.concurrent.Executor;
 @Slf4j
 public class LcnConnectionProxy implements Connection {
 
+    /**
+     * 锁定读或写入结果的查询，关键字间可为任意空白
+     */
+    private static final Pattern LOCKING_READ = Pattern.compile(
+            "\\b(for\\s+update|for\\s+share|lock\\s+in\\s+share\\s+mode|into)\\b", Pattern.CASE_INSENSITIVE);
+
     private Connection connection;
 
+    /**
+     * 物理连接归还后的回调
+     */
+    private final Runnable releaseHook;
+
+    /**
+     * 共享该连接的事务单元及其加入时的保存点，按加入顺序。首个单元的保存点即事务起点，为 null
+     */
+    private final Map<String, Savepoint> units = new LinkedHashMap<>();
+
+    /**
+     * 写操作已随其他单元回滚而撤销的事务单元
+     */
+    private final Set<String> revokedUnits = new HashSet<>();
+
+    private boolean rollbackOnly;
+
+    /**
+     * 连接上是否可能产生了写操作（DML、锁定读、存储过程及无法预知的语句）
+     */
+    private volatile boolean written;
+
+    private volatile boolean readOnly;
+
+    private boolean finished;
+
     public LcnConnectionProxy(Connection connection) {
+        this(connection, () -> {
+        });
+    }
+
+    public LcnConnectionProxy(Connection connection, Runnable releaseHook) {
         this.connection = connection;
+        this.releaseHook = releaseHook;
+    }
+
+    /**
+     * 事务单元使用该连接。加入已被其他单元使用的连接时设置保存点，该单元回滚时只回滚到此处
+     *
+     * @param unitId unitId
+     * @return 连接已结束时返回 false
+     * @throws SQLException SQLException
+     */
+    public synchronized boolean join(String unitId) throws SQLException {
+        if (finished) {
+            return false;
+        }
+        if (units.containsKey(unitId)) {
+            return true;
+        }
+        connection.setAutoCommit(false);
+        Savepoint savepoint = null;
+        if (rollbackOnly) {
+            // 连接已确定整体回滚，之后加入的单元写操作同样被撤销
+            revokedUnits.add(unitId);
+        } else if (!units.isEmpty()) {
+            try {
+                savepoint = connection.setSavepoint();
+            } catch (SQLException e) {
+                log.warn("transaction type[lcn] proxy connection:{} savepoint unavailable, unit {} rollback will rollback all.",
+                        this, unitId, e);
+            }
+        }
+        units.put(unitId, savepoint);
+        return true;
+    }
+
+    /**
+     * 通知事务单元结束。共享连接的单元全部结束后才提交或回滚。
+     * 单元回滚时回滚到其保存点，之后加入的单元的写操作一并撤销；无保存点时整体回滚。
+     * 写操作已被撤销的单元收到提交通知时返回失败
+     *
+     * @param unitId unitId
+     * @param state  transactionState
+     * @return RpcResponseState RpcResponseState
+     */
+    public synchronized RpcResponseState notify(String unitId, int state) {
+        if (finished || !units.containsKey(unitId)) {
+            return RpcResponseState.success;
+        }
+        boolean revoked = revokedUnits.remove(unitId);
+        if (state != 1 && !revoked) {
+            rollbackUnit(unitId);
+        }
+        units.remove(unitId);
+        RpcResponseState result = state == 1 && revoked ? RpcResponseState.fail : RpcResponseState.success;
+        if (result == RpcResponseState.fail) {
+            log.error("transaction type[lcn] proxy connection:{} unit {} notified commit but its writes were rolled back.",
+                    this, unitId);
+        }
+        if (!units.isEmpty()) {
+            log.debug("transaction type[lcn] proxy connection:{} still used by units: {}.", this, units.keySet());
+            return result;
+        }
+        finished = true;
+        return notify(rollbackOnly ? 0 : 1) == RpcResponseState.fail ? RpcResponseState.fail : result;
+    }
+
+    /**
+     * 回滚事务单元的写操作，其后加入的单元写操作一并撤销
+     */
+    private void rollbackUnit(String unitId) {
+        Savepoint savepoint = units.get(unitId);
+        boolean rolledBack = false;
+        if (savepoint != null && !rollbackOnly) {
+            try {
+                connection.rollback(savepoint);
+                rolledBack = true;
+            } catch (SQLException e) {
+                log.error("transaction type[lcn] proxy connection:{} rollback to savepoint of unit {} error.", this, unitId, e);
+            }
+        }
+        if (!rolledBack) {
+            rollbackOnly = true;
+        }
+        // 回滚到保存点时其后加入的单元被撤销，保存点失效；整体回滚时其余单元都被撤销
+        boolean after = !rolledBack;
+        for (Map.Entry<String, Savepoint> entry : units.entrySet()) {
+            if (entry.getKey().equals(unitId)) {
+                after = true;
+                continue;
+            }
+            if (after) {
+                entry.setValue(null);
+                revokedUnits.add(entry.getKey());
+            }
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 事务单元是否使用该连接
+     *
+     * @param unitId unitId
+     * @return result
+     */
+    public synchronized boolean hasUnit(String unitId) {
+        return units.containsKey(unitId);
+    }
+
+    public boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * 记录将要执行的语句，sql 未知时按写操作对待
+     *
+     * @param sql sql
+     */
+    private void observe(String sql) {
+        if (written || readOnly) {
+            return;
+        }
+        if (sql == null || !isPlainSelect(sql)) {
+            written = true;
+        }
+    }
+
+    private static boolean isPlainSelect(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.startsWith("(")) {
+            trimmed = trimmed.substring(1).trim();
+        }
+        if (!trimmed.regionMatches(true, 0, "select", 0, 6)) {
+            return false;
+        }
+        return !LOCKING_READ.matcher(trimmed).find();
+    }
+
+    /**
+     * 放弃未使用的连接
+     */
+    public void discard() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error(e.getLocalizedMessage(), e);
+        } finally {
+            releaseHook.run();
+        }
     }
 
     /**
@@ -56,6 +247,8 @@ public class LcnConnectionProxy implements Connection {
         } catch (Exception e) {
             log.error(e.getLocalizedMessage(), e);
             return RpcResponseState.fail;
+        } finally {
+            releaseHook.run();
         }
     }
 
@@ -87,16 +280,19 @@ public class LcnConnectionProxy implements Connection {
 
     @Override
     public Statement createStatement() throws SQLException {
+        observe(null);
         return connection.createStatement();
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
+        observe(sql);
         return connection.prepareStatement(sql);
     }
 
     @Override
     public CallableStatement prepareCall(String sql) throws SQLException {
+        observe(null);
         return connection.prepareCall(sql);
     }
 
@@ -118,6 +314,7 @@ public class LcnConnectionProxy implements Connection {
     @Override
     public void setReadOnly(boolean readOnly) throws SQLException {
         connection.setReadOnly(readOnly);
+        this.readOnly = readOnly;
     }
 
     @Override
@@ -157,16 +354,19 @@ public class LcnConnectionProxy implements Connection {
 
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        observe(null);
         return connection.createStatement(resultSetType, resultSetConcurrency);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        observe(sql);
         return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
     }
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        observe(null);
         return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
     }
 
@@ -212,31 +412,37 @@ public class LcnConnectionProxy implements Connection {
 
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        observe(null);
         return connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        observe(sql);
         return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        observe(null);
         return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        observe(sql);
         return connection.prepareStatement(sql, autoGeneratedKeys);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        observe(sql);
         return connection.prepareStatement(sql, columnIndexes);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        observe(sql);
         return connection.prepareStatement(sql, columnNames);
     }
 
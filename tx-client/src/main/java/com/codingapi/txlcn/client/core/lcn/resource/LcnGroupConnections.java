@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.lcn.resource;
+
+import com.codingapi.txlcn.spi.message.dto.RpcResponseState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Description: 事务组在本地持有的 LCN 连接，每个数据源一个。
+ * 同组多次参与（嵌套或重复调用）的事务单元共享同一物理连接，避免同一事务自身行锁冲突
+ */
+public class LcnGroupConnections {
+
+    private final Map<Object, LcnConnectionProxy> connections = new ConcurrentHashMap<>();
+
+    public LcnConnectionProxy get(Object dataSource) {
+        return connections.get(dataSource);
+    }
+
+    /**
+     * 登记新持有的连接
+     *
+     * @param dataSource dataSource
+     * @param connection connection
+     * @return 已存在的连接，登记成功时为 null
+     */
+    public LcnConnectionProxy putIfAbsent(Object dataSource, LcnConnectionProxy connection) {
+        return connections.putIfAbsent(dataSource, connection);
+    }
+
+    public void remove(Object dataSource, LcnConnectionProxy connection) {
+        connections.remove(dataSource, connection);
+    }
+
+    /**
+     * 事务单元使用的连接上是否都未发生写操作
+     *
+     * @param unitId unitId
+     * @return result
+     */
+    public boolean isReadOnly(String unitId) {
+        for (LcnConnectionProxy connection : connections.values()) {
+            if (connection.isWritten() && connection.hasUnit(unitId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 通知事务单元结束，连接在共享它的单元全部结束后提交或回滚
+     *
+     * @param unitId unitId
+     * @param state  transactionState
+     * @return RpcResponseState
+     */
+    public RpcResponseState notify(String unitId, int state) {
+        RpcResponseState result = RpcResponseState.success;
+        for (Map.Entry<Object, LcnConnectionProxy> entry : connections.entrySet()) {
+            LcnConnectionProxy connection = entry.getValue();
+            if (connection.notify(unitId, state).equals(RpcResponseState.fail)) {
+                result = RpcResponseState.fail;
+            }
+            if (connection.isFinished()) {
+                connections.remove(entry.getKey(), connection);
+            }
+        }
+        return result;
+    }
+}
@@ -35,19 +35,53 @@ public class LcnTransactionResourceExecutor implements TransactionResourceExecut
 
     private final TransactionAttachmentCache transactionAttachmentCache;
 
+    private final LcnConnectionHoldBudget connectionHoldBudget;
+
     @Autowired
-    public LcnTransactionResourceExecutor(TransactionAttachmentCache transactionAttachmentCache) {
+    public LcnTransactionResourceExecutor(TransactionAttachmentCache transactionAttachmentCache,
+                                          LcnConnectionHoldBudget connectionHoldBudget) {
         this.transactionAttachmentCache = transactionAttachmentCache;
+        this.connectionHoldBudget = connectionHoldBudget;
     }
 
     @Override
     public Connection proxyConnection(Supplier<Connection> connectionSupplier) throws Throwable {
+        return proxyConnection(null, connectionSupplier);
+    }
+
+    @Override
+    public Connection proxyConnection(Object dataSource, Supplier<Connection> connectionSupplier) throws Throwable {
         String groupId = DTXLocal.cur().getGroupId();
         String unitId = DTXLocal.cur().getUnitId();
-        Connection connection = transactionAttachmentCache.attachment(
-                groupId, unitId, LcnConnectionProxy.class, () -> new LcnConnectionProxy(connectionSupplier.get())
-        );
-        connection.setAutoCommit(false);
-        return connection;
+        Object key = dataSource == null ? LcnGroupConnections.class : dataSource;
+        // 同组同数据源的事务单元共享一个被持有的连接
+        LcnGroupConnections groupConnections = transactionAttachmentCache.attachment(
+                groupId, unitId, LcnGroupConnections.class, LcnGroupConnections::new);
+        while (true) {
+            LcnConnectionProxy connection = groupConnections.get(key);
+            if (connection == null) {
+                // 新持有一个物理连接前申请预算，排队不在缓存锁内进行
+                Runnable release = connectionHoldBudget.acquire(key);
+                LcnConnectionProxy created;
+                try {
+                    created = new LcnConnectionProxy(connectionSupplier.get(), release);
+                } catch (Throwable e) {
+                    release.run();
+                    throw e;
+                }
+                connection = groupConnections.putIfAbsent(key, created);
+                if (connection == null) {
+                    connection = created;
+                } else {
+                    // 并发下已由其他线程持有连接
+                    created.discard();
+                }
+            }
+            if (connection.join(unitId)) {
+                return connection;
+            }
+            // 该连接已随其他单元回滚结束
+            groupConnections.remove(key, connection);
+        }
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.tcc;
+
+import com.codingapi.txlcn.client.bean.DTXLocal;
+import com.codingapi.txlcn.client.bean.TCCTransactionInfo;
+import com.codingapi.txlcn.client.config.TxClientConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Description: TCC confirm/cancel 执行器。各事务单元并行执行，每个 confirm/cancel 方法有并发上限
+ */
+@Component
+@Slf4j
+public class TccConfirmExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+
+    private final int concurrency;
+
+    private final long timeoutMillis;
+
+    private final Map<String, Semaphore> limits = new ConcurrentHashMap<>();
+
+    private final TccTransactionInfoCache tccTransactionInfoCache;
+
+    @Autowired
+    public TccConfirmExecutor(TxClientConfig clientConfig, TccTransactionInfoCache tccTransactionInfoCache) {
+        this.tccTransactionInfoCache = tccTransactionInfoCache;
+        int threads = clientConfig.getTccConfirmThreads() > 0 ?
+                clientConfig.getTccConfirmThreads() : Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "txlcn-tcc-confirm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.concurrency = clientConfig.getTccConfirmConcurrency();
+        this.timeoutMillis = clientConfig.getTccConfirmTimeout() > 0 ?
+                clientConfig.getTccConfirmTimeout() : clientConfig.getDtxTime();
+    }
+
+    /**
+     * 提交事务单元的 confirm/cancel，同一调用只执行一次。
+     * 执行按 (groupId, unitId) 登记在事务信息缓存中，从切面日志恢复的事务信息同样适用
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @param state   1 confirm, 其它 cancel
+     * @param tccInfo tccInfo
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> submit(String groupId, String unitId, int state, TCCTransactionInfo tccInfo) {
+        return tccTransactionInfoCache.execution(groupId, unitId,
+                () -> CompletableFuture.runAsync(() -> execute(groupId, unitId, state, tccInfo), executor));
+    }
+
+    /**
+     * 等待执行完成
+     *
+     * @param execution 执行结果
+     * @return 超时仍未完成时为 false，此时方法仍在执行
+     * @throws Throwable 用户方法异常
+     */
+    public boolean await(CompletableFuture<Void> execution) throws Throwable {
+        try {
+            execution.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw e.getCause() == null ? e : e.getCause();
+        }
+    }
+
+    private void execute(String groupId, String unitId, int state, TCCTransactionInfo tccInfo) {
+        String method = tccInfo.getExecuteClass().getName() + '#' +
+                (state == 1 ? tccInfo.getConfirmMethod() : tccInfo.getCancelMethod());
+        Semaphore limit = concurrency > 0 ? limits.computeIfAbsent(method, k -> new Semaphore(concurrency)) : null;
+        try {
+            if (limit != null && !limit.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("tcc method " + method + " reached concurrency limit " + concurrency);
+            }
+            try {
+                // 用户的 confirm or cancel method 可以用到这个
+                DTXLocal dtxLocal = DTXLocal.getOrNew();
+                dtxLocal.setGroupId(groupId);
+                dtxLocal.setUnitId(unitId);
+                tccInfo.getInvoker().invoke(state, tccInfo.getMethodParameter());
+            } finally {
+                DTXLocal.makeNeverAppeared();
+                if (limit != null) {
+                    limit.release();
+                }
+            }
+        } catch (Throwable e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
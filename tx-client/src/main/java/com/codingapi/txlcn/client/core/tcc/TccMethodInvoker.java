@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.tcc;
+
+import com.codingapi.txlcn.client.bean.TCCTransactionInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Description: TCC confirm/cancel 调用器。方法与目标 bean 在首次缓存 TCC 事务信息时解析为 MethodHandle，
+ * 通知时直接调用，无反射查找
+ */
+public final class TccMethodInvoker {
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final MethodHandle confirm;
+
+    private final MethodHandle cancel;
+
+    private TccMethodInvoker(MethodHandle confirm, MethodHandle cancel) {
+        this.confirm = confirm;
+        this.cancel = cancel;
+    }
+
+    /**
+     * 解析 TCC 事务信息的 confirm/cancel 方法
+     *
+     * @param bean    执行类实例
+     * @param tccInfo tccInfo
+     * @return invoker
+     * @throws NoSuchMethodException 方法不存在
+     * @throws IllegalAccessException 方法不可访问
+     */
+    public static TccMethodInvoker resolve(Object bean, TCCTransactionInfo tccInfo)
+            throws NoSuchMethodException, IllegalAccessException {
+        return new TccMethodInvoker(
+                handle(bean, tccInfo.getExecuteClass(), tccInfo.getConfirmMethod(), tccInfo.getMethodTypeParameter()),
+                handle(bean, tccInfo.getExecuteClass(), tccInfo.getCancelMethod(), tccInfo.getMethodTypeParameter()));
+    }
+
+    private static MethodHandle handle(Object bean, Class<?> executeClass, String name, Class<?>[] parameterTypes)
+            throws NoSuchMethodException, IllegalAccessException {
+        Method method = executeClass.getMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method)
+                .bindTo(bean)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(INVOKE_TYPE);
+    }
+
+    /**
+     * 执行 confirm 或 cancel
+     *
+     * @param state 1 confirm, 其它 cancel
+     * @param args  业务方法参数
+     * @throws Throwable 用户方法异常
+     */
+    public void invoke(int state, Object[] args) throws Throwable {
+        MethodHandle handle = state == 1 ? confirm : cancel;
+        Object ignored = (Object) handle.invokeExact(args);
+    }
+}
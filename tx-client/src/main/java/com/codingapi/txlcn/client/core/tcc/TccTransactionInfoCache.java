@@ -1,17 +1,335 @@
 package com.codingapi.txlcn.client.core.tcc;
 
+import com.codingapi.txlcn.client.aspectlog.AspectLogger;
 import com.codingapi.txlcn.client.bean.TCCTransactionInfo;
+import com.codingapi.txlcn.client.config.TxClientConfig;
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import com.codingapi.txlcn.commons.exception.BeforeBusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
- * Description:
+ * Description: TCC 事务信息缓存。
+ * 方法解析结果按事务单元签名缓存；每次调用的参数按 (groupId, unitId) 缓存，
+ * 有容量上限并在 DTX 超时后淘汰，淘汰时交由切面日志保存，迟到的通知从切面日志恢复参数
  * Date: 19-1-16 下午1:42
  *
  * @author ujued
  */
 @Component
-public class TccTransactionInfoCache extends ConcurrentHashMap<String, TCCTransactionInfo> {
+@Slf4j
+public class TccTransactionInfoCache implements DisposableBean {
 
+    private final ApplicationContext applicationContext;
+
+    private final AspectLogger aspectLogger;
+
+    private final Map<String, TCCTransactionInfo> templates = new ConcurrentHashMap<>();
+
+    /**
+     * confirm/cancel 的执行，按 (groupId, unitId) 保证同一调用只执行一次，与事务信息一同移除
+     */
+    private final Map<String, CompletableFuture<Void>> executions = new ConcurrentHashMap<>();
+
+    /**
+     * 插入顺序即过期顺序
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * 事务组在本地缓存的事务单元
+     */
+    private final Map<String, Set<String>> groupUnits = new HashMap<>();
+
+    private final int capacity;
+
+    private final long ttlMillis;
+
+    private final LongAdder expiredEntries = new LongAdder();
+
+    private final LongAdder overflowEntries = new LongAdder();
+
+    private final ScheduledExecutorService sweeper;
+
+    @Autowired
+    public TccTransactionInfoCache(ApplicationContext applicationContext, AspectLogger aspectLogger,
+                                   TxClientConfig clientConfig) {
+        this.applicationContext = applicationContext;
+        this.aspectLogger = aspectLogger;
+        this.capacity = clientConfig.getTccInfoCacheSize();
+        this.ttlMillis = clientConfig.getDtxTime() + 10000;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "txlcn-tcc-info-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 是否已解析事务单元的 TCC 方法
+     *
+     * @param unitId unitId
+     * @return result
+     */
+    public boolean isResolved(String unitId) {
+        return templates.containsKey(unitId);
+    }
+
+    /**
+     * 首次缓存事务单元的 TCC 事务信息，同时解析执行类 bean 及 confirm/cancel 方法
+     *
+     * @param unitId  unitId
+     * @param tccInfo tccInfo
+     * @throws BeforeBusinessException 执行类或方法不可用时抛出
+     */
+    public void resolveIfAbsent(String unitId, TCCTransactionInfo tccInfo) throws BeforeBusinessException {
+        try {
+            Object bean = applicationContext.getBean(tccInfo.getExecuteClass());
+            tccInfo.setInvoker(TccMethodInvoker.resolve(bean, tccInfo));
+        } catch (Exception e) {
+            throw new BeforeBusinessException("TCC confirm/cancel method unavailable in " + tccInfo.getExecuteClass(), e);
+        }
+        templates.putIfAbsent(unitId, tccInfo);
+    }
+
+    /**
+     * 缓存一次调用的 TCC 事务信息
+     *
+     * @param groupId         groupId
+     * @param unitId          unitId
+     * @param transactionInfo 切面信息
+     */
+    public void put(String groupId, String unitId, TransactionInfo transactionInfo) {
+        TCCTransactionInfo template = Objects.requireNonNull(templates.get(unitId), "unresolved tcc unit " + unitId);
+        Entry entry = new Entry(groupId, unitId, copyOf(template, transactionInfo.getArgumentValues()), transactionInfo,
+                System.currentTimeMillis() + ttlMillis);
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (entries) {
+            entries.remove(entry.key);
+            entries.put(entry.key, entry);
+            groupUnits.computeIfAbsent(groupId, k -> new HashSet<>()).add(unitId);
+            while (entries.size() > capacity) {
+                Iterator<Entry> iterator = entries.values().iterator();
+                Entry eldest = iterator.next();
+                iterator.remove();
+                unlink(eldest.groupId, eldest.unitId);
+                evicted.add(eldest);
+                overflowEntries.increment();
+            }
+        }
+        handOff(evicted);
+    }
+
+    /**
+     * 一次调用的 confirm/cancel 执行。已有执行时直接返回，否则提交新的执行
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @param submit  提交执行
+     * @return 执行结果
+     */
+    public CompletableFuture<Void> execution(String groupId, String unitId, Supplier<CompletableFuture<Void>> submit) {
+        return executions.computeIfAbsent(key(groupId, unitId), k -> submit.get());
+    }
+
+    /**
+     * 获取一次调用的 TCC 事务信息，已淘汰时从切面日志恢复
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @return 不存在时为 null
+     */
+    public TCCTransactionInfo get(String groupId, String unitId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key(groupId, unitId));
+        }
+        if (Objects.nonNull(entry)) {
+            return entry.tccInfo;
+        }
+        TCCTransactionInfo template = templates.get(unitId);
+        TransactionInfo transactionInfo = aspectLogger.getTransactionInfo(groupId, unitId);
+        if (Objects.isNull(template) || Objects.isNull(transactionInfo)) {
+            return null;
+        }
+        log.debug("tcc info of group: {}, unit: {} recovered from aspect log.", groupId, unitId);
+        return copyOf(template, transactionInfo.getArgumentValues());
+    }
+
+    /**
+     * 一次调用的 TCC 事务信息交由切面日志保存，供补偿使用
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     */
+    public void persist(String groupId, String unitId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key(groupId, unitId));
+        }
+        if (Objects.nonNull(entry)) {
+            handOff(Collections.singletonList(entry));
+        }
+    }
+
+    public void remove(String groupId, String unitId) {
+        synchronized (entries) {
+            if (Objects.nonNull(entries.remove(key(groupId, unitId)))) {
+                unlink(groupId, unitId);
+            }
+        }
+        executions.remove(key(groupId, unitId));
+    }
+
+    /**
+     * 事务组在本地缓存的事务单元
+     *
+     * @param groupId groupId
+     * @return unitIds
+     */
+    public List<String> unitsOf(String groupId) {
+        synchronized (entries) {
+            Set<String> units = groupUnits.get(groupId);
+            return Objects.isNull(units) ? Collections.emptyList() : new ArrayList<>(units);
+        }
+    }
+
+    private void unlink(String groupId, String unitId) {
+        Set<String> units = groupUnits.get(groupId);
+        if (Objects.nonNull(units) && units.remove(unitId) && units.isEmpty()) {
+            groupUnits.remove(groupId);
+        }
+    }
+
+    /**
+     * @return 缓存中的调用数
+     */
+    public int getEntryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return 超时淘汰的调用数
+     */
+    public long getExpiredEntryCount() {
+        return expiredEntries.sum();
+    }
+
+    /**
+     * @return 超出容量淘汰的调用数
+     */
+    public long getOverflowEntryCount() {
+        return overflowEntries.sum();
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.deadline > now) {
+                    break;
+                }
+                evicted.add(entry);
+                iterator.remove();
+                unlink(entry.groupId, entry.unitId);
+                expiredEntries.increment();
+            }
+        }
+        if (!evicted.isEmpty()) {
+            log.info("evicted {} unnotified tcc units, {} remain.", evicted.size(), getEntryCount());
+        }
+        handOff(evicted);
+    }
+
+    /**
+     * 淘汰的调用交由切面日志保存
+     */
+    private void handOff(List<Entry> evicted) {
+        for (Entry entry : evicted) {
+            // 执行中的 confirm/cancel 保留到结束，期间重复的通知仍等待同一执行
+            CompletableFuture<Void> execution = executions.get(entry.key);
+            if (Objects.nonNull(execution)) {
+                execution.whenComplete((v, e) -> executions.remove(entry.key, execution));
+            }
+            try {
+                if (Objects.isNull(aspectLogger.getTransactionInfo(entry.groupId, entry.unitId))) {
+                    aspectLogger.trace(entry.groupId, entry.unitId, entry.transactionInfo);
+                }
+            } catch (Exception e) {
+                log.error("hand off tcc unit to aspect log error. groupId: {}, unitId: {}", entry.groupId, entry.unitId, e);
+            }
+        }
+    }
+
+    private static TCCTransactionInfo copyOf(TCCTransactionInfo template, Object[] args) {
+        TCCTransactionInfo tccInfo = new TCCTransactionInfo();
+        tccInfo.setExecuteClass(template.getExecuteClass());
+        tccInfo.setConfirmMethod(template.getConfirmMethod());
+        tccInfo.setCancelMethod(template.getCancelMethod());
+        tccInfo.setMethodTypeParameter(template.getMethodTypeParameter());
+        tccInfo.setInvoker(template.getInvoker());
+        tccInfo.setMethodParameter(args);
+        return tccInfo;
+    }
+
+    private static String key(String groupId, String unitId) {
+        return groupId + ':' + unitId;
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    private static class Entry {
+
+        private final String groupId;
+
+        private final String unitId;
+
+        private final String key;
+
+        private final TCCTransactionInfo tccInfo;
+
+        private final TransactionInfo transactionInfo;
+
+        private final long deadline;
+
+        private Entry(String groupId, String unitId, TCCTransactionInfo tccInfo, TransactionInfo transactionInfo,
+                      long deadline) {
+            this.groupId = groupId;
+            this.unitId = unitId;
+            this.key = key(groupId, unitId);
+            this.tccInfo = tccInfo;
+            this.transactionInfo = transactionInfo;
+            this.deadline = deadline;
+        }
+    }
 }
@@ -54,11 +54,11 @@ public class TccRunningTransaction implements TXLCNTransactionControl {
     public void preBusinessCode(TxTransactionInfo info) throws BeforeBusinessException {
 
         // 缓存TCC事务信息，如果有必要
-        if (tccTransactionInfoCache.get(info.getUnitId()) == null) {
-            tccTransactionInfoCache.putIfAbsent(info.getUnitId(), TccStartingTransaction.prepareTccInfo(info));
+        if (!tccTransactionInfoCache.isResolved(info.getUnitId())) {
+            tccTransactionInfoCache.resolveIfAbsent(info.getUnitId(), TccStartingTransaction.prepareTccInfo(info));
         }
 
-        tccTransactionInfoCache.get(info.getUnitId()).setMethodParameter(info.getTransactionInfo().getArgumentValues());
+        tccTransactionInfoCache.put(info.getGroupId(), info.getUnitId(), info.getTransactionInfo());
     }
 
     @Override
@@ -80,11 +80,11 @@ public class TccStartingTransaction implements TXLCNTransactionControl {
     @Override
     public void preBusinessCode(TxTransactionInfo info) throws BeforeBusinessException {
         // 缓存TCC事务信息，如果有必要
-        if (tccTransactionInfoCache.get(info.getUnitId()) == null) {
-            tccTransactionInfoCache.putIfAbsent(info.getUnitId(), prepareTccInfo(info));
+        if (!tccTransactionInfoCache.isResolved(info.getUnitId())) {
+            tccTransactionInfoCache.resolveIfAbsent(info.getUnitId(), prepareTccInfo(info));
         }
 
-        tccTransactionInfoCache.get(info.getUnitId()).setMethodParameter(info.getTransactionInfo().getArgumentValues());
+        tccTransactionInfoCache.put(info.getGroupId(), info.getUnitId(), info.getTransactionInfo());
 
         // 创建事务组
         transactionControlTemplate.createGroup(
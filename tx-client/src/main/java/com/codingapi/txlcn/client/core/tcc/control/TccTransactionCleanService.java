@@ -15,7 +15,7 @@
  */
 package com.codingapi.txlcn.client.core.tcc.control;
 
-import com.codingapi.txlcn.client.bean.DTXLocal;
+import com.codingapi.txlcn.client.core.tcc.TccConfirmExecutor;
 import com.codingapi.txlcn.client.core.tcc.TccTransactionInfoCache;
 import com.codingapi.txlcn.client.message.helper.TxMangerReporter;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
@@ -24,11 +24,11 @@ import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.TransactionCleanService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Description:
@@ -42,55 +42,64 @@ public class TccTransactionCleanService implements TransactionCleanService {
 
     private final TransactionAttachmentCache transactionAttachmentCache;
 
-    private final ApplicationContext applicationContext;
-
     private final TccTransactionInfoCache tccTransactionInfoCache;
 
     private final TxMangerReporter txMangerReporter;
 
+    private final TccConfirmExecutor tccConfirmExecutor;
+
     @Autowired
     public TccTransactionCleanService(TransactionAttachmentCache transactionAttachmentCache,
-                                      ApplicationContext applicationContext,
                                       TccTransactionInfoCache tccTransactionInfoCache,
-                                      TxMangerReporter txMangerReporter) {
+                                      TxMangerReporter txMangerReporter,
+                                      TccConfirmExecutor tccConfirmExecutor) {
         this.transactionAttachmentCache = transactionAttachmentCache;
-        this.applicationContext = applicationContext;
         this.tccTransactionInfoCache = tccTransactionInfoCache;
         this.txMangerReporter = txMangerReporter;
+        this.tccConfirmExecutor = tccConfirmExecutor;
     }
 
     @Override
     public void clear(String groupId, int state, String unitId, String unitType) throws TransactionClearException {
-        TCCTransactionInfo tccInfo = tccTransactionInfoCache.get(unitId);
-
-        Object object = applicationContext.getBean(tccInfo.getExecuteClass());
-        Method exeMethod = null;
+        TCCTransactionInfo tccInfo = tccTransactionInfoCache.get(groupId, unitId);
+        if (Objects.isNull(tccInfo)) {
+            log.error("tcc info not found. groupId: {}, unitId: {}", groupId, unitId);
+            throw new TransactionClearException("tcc info not found.");
+        }
 
         try {
-            // 用户的 confirm or cancel method 可以用到这个
-            if (Objects.isNull(DTXLocal.cur())) {
-                DTXLocal.getOrNew().setJustNow(true);
-            }
-            DTXLocal.getOrNew().setGroupId(groupId);
-            DTXLocal.cur().setUnitId(unitId);
-            exeMethod = tccInfo.getExecuteClass().getMethod(
-                    state == 1 ? tccInfo.getConfirmMethod() : tccInfo.getCancelMethod(),
-                    tccInfo.getMethodTypeParameter());
+            CompletableFuture<Void> execution = tccConfirmExecutor.submit(groupId, unitId, state, tccInfo);
             try {
-                exeMethod.invoke(object, tccInfo.getMethodParameter());
+                if (!tccConfirmExecutor.await(execution)) {
+                    // 方法仍在执行，可能成功。保留事务信息，执行结束后再清理或上报
+                    log.warn("tcc clean timeout, wait for completion in background. groupId: {}, unitId: {}", groupId, unitId);
+                    execution.whenComplete((v, e) -> onLateCompletion(groupId, unitId, state, e));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
             } catch (Throwable e) {
                 log.error("tcc clean error.", e);
                 txMangerReporter.reportTccCleanException(groupId, unitId, state);
             }
             // 清理与事务组生命周期一样的资源 see: com.codingapi.txlcn.client.support.TXLCNTransactionServiceExecutor.transactionRunning
             transactionAttachmentCache.removeAttachments(groupId, unitId);
+            tccTransactionInfoCache.remove(groupId, unitId);
         } catch (Exception e) {
-            log.error(" rpc_tcc_" + exeMethod + e.getMessage());
+            log.error(" rpc_tcc_" + (state == 1 ? tccInfo.getConfirmMethod() : tccInfo.getCancelMethod()) + e.getMessage());
             throw new TransactionClearException(e.getMessage());
-        } finally {
-            if (DTXLocal.cur().isJustNow()) {
-                DTXLocal.makeNeverAppeared();
-            }
         }
     }
+
+    private void onLateCompletion(String groupId, String unitId, int state, Throwable error) {
+        if (Objects.nonNull(error)) {
+            log.error("tcc clean error.", error instanceof CompletionException && Objects.nonNull(error.getCause()) ?
+                    error.getCause() : error);
+            // 切面日志已随通知清理，重新保存供补偿使用
+            tccTransactionInfoCache.persist(groupId, unitId);
+            txMangerReporter.reportTccCleanException(groupId, unitId, state);
+        }
+        tccTransactionInfoCache.remove(groupId, unitId);
+    }
 }
@@ -19,6 +19,7 @@ import com.codingapi.txlcn.client.bean.DTXLocal;
 import com.codingapi.txlcn.client.bean.TxTransactionInfo;
 import com.codingapi.txlcn.client.core.txc.resource.def.bean.RollbackInfo;
 import com.codingapi.txlcn.client.support.TXLCNTransactionControl;
+import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.template.TransactionCleanTemplate;
 import com.codingapi.txlcn.client.support.template.TransactionControlTemplate;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
@@ -41,11 +42,15 @@ public class TxcRunningTransaction implements TXLCNTransactionControl {
 
     private final TransactionControlTemplate transactionControlTemplate;
 
+    private final TransactionAttachmentCache transactionAttachmentCache;
+
     @Autowired
     public TxcRunningTransaction(TransactionCleanTemplate transactionCleanTemplate,
-                                 TransactionControlTemplate transactionControlTemplate) {
+                                 TransactionControlTemplate transactionControlTemplate,
+                                 TransactionAttachmentCache transactionAttachmentCache) {
         this.transactionCleanTemplate = transactionCleanTemplate;
         this.transactionControlTemplate = transactionControlTemplate;
+        this.transactionAttachmentCache = transactionAttachmentCache;
     }
 
     @Override
@@ -74,6 +79,14 @@ public class TxcRunningTransaction implements TXLCNTransactionControl {
 
     @Override
     public void onBusinessCodeSuccess(TxTransactionInfo info, Object result) throws TxClientException {
+        // 只读单元无锁、无undo_log，不加入事务组。要求回滚的单元仍需加入事务组，由此通知 TM 回滚
+        RollbackInfo rollbackInfo = (RollbackInfo) DTXLocal.cur().getAttachment();
+        if (rollbackInfo != null && rollbackInfo.isReadOnly() && DTXLocal.transactionState() == 1) {
+            log.debug("txc > read only unit: {}, skip join group.", info.getUnitId());
+            transactionAttachmentCache.removeAttachments(info.getGroupId(), info.getUnitId());
+            return;
+        }
+
         // 加入事务组
         transactionControlTemplate.joinGroup(info.getGroupId(), info.getUnitId(), info.getTransactionType(),
                 info.getTransactionInfo());
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.txc.resource;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Description: 按占位符 SQL 缓存解析结果的 LRU。
+ * 缓存的语句在执行间共享，只读使用，参数值由 {@link SqlParameterBinder} 单独绑定
+ */
+public class ParsedStatementCache {
+
+    private final Map<String, Statement> statements;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public ParsedStatementCache(int capacity) {
+        this.statements = new LinkedHashMap<String, Statement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Statement> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 解析 SQL，已解析过的直接返回缓存
+     *
+     * @param sql 占位符 SQL
+     * @return 只读的语句
+     * @throws JSQLParserException 不支持此SQL时抛出
+     */
+    public Statement parse(String sql) throws JSQLParserException {
+        Statement statement;
+        synchronized (statements) {
+            statement = statements.get(sql);
+        }
+        if (Objects.nonNull(statement)) {
+            hits.increment();
+            return statement;
+        }
+        misses.increment();
+        statement = CCJSqlParserUtil.parse(sql);
+        synchronized (statements) {
+            Statement present = statements.putIfAbsent(sql, statement);
+            return Objects.isNull(present) ? statement : present;
+        }
+    }
+
+    public int size() {
+        synchronized (statements) {
+            return statements.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+}
@@ -22,7 +22,6 @@ import net.sf.jsqlparser.expression.operators.relational.MultiExpressionList;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.select.SubSelect;
-import org.aspectj.util.Reflection;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -40,13 +39,16 @@ public class PrimaryKeyListVisitor implements ItemsListVisitor {
     private List<Column> columns;
     private List<String> primaryKeys;
     private Table table;
+    private SqlParameterBinder parameterBinder;
 
     private List<Map<String, Object>> primaryKeyValuesList;
 
-    public PrimaryKeyListVisitor(Table table, List<Column> columns, List<String> primaryKeys) {
+    public PrimaryKeyListVisitor(Table table, List<Column> columns, List<String> primaryKeys,
+                                 SqlParameterBinder parameterBinder) {
         this.columns = columns;
         this.primaryKeys = primaryKeys;
         this.table = table;
+        this.parameterBinder = parameterBinder;
     }
 
     @Override
@@ -75,11 +77,9 @@ public class PrimaryKeyListVisitor implements ItemsListVisitor {
     private Map<String, Object> newKeyValues(List<Expression> expressions) {
         Map<String, Object> keyValues = new HashMap<>();
         for (int i = 0; i < columns.size(); i++) {
-            columns.get(i).setTable(table);
-            if (primaryKeys.contains(columns.get(i).getFullyQualifiedName())) {
-                Object expression = expressions.get(i).getASTNode().jjtGetValue();
-                keyValues.put(columns.get(i).getFullyQualifiedName(),
-                        Reflection.invokeN(expression.getClass(), "getValue", expression, new Object[0]));
+            String column = new Column(table, columns.get(i).getColumnName()).getFullyQualifiedName();
+            if (primaryKeys.contains(column)) {
+                keyValues.put(column, parameterBinder.valueOf(expressions.get(i)));
             }
         }
         return keyValues;
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.txc.resource;
+
+import com.codingapi.txlcn.jdbcproxy.p6spy.common.PreparedStatementInformation;
+import com.codingapi.txlcn.jdbcproxy.p6spy.common.StatementInformation;
+import com.codingapi.txlcn.jdbcproxy.p6spy.common.Value;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.JdbcParameter;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.util.deparser.ExpressionDeParser;
+import net.sf.jsqlparser.util.deparser.SelectDeParser;
+import org.aspectj.util.Reflection;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Description: 为只读的已解析语句绑定本次执行的参数值。
+ * 占位符按解析时的序号（从1开始）对应预编译语句的参数
+ */
+public class SqlParameterBinder {
+
+    private final PreparedStatementInformation statementInformation;
+
+    private SqlParameterBinder(PreparedStatementInformation statementInformation) {
+        this.statementInformation = statementInformation;
+    }
+
+    public static SqlParameterBinder of(StatementInformation statementInformation) {
+        return new SqlParameterBinder(statementInformation instanceof PreparedStatementInformation ?
+                (PreparedStatementInformation) statementInformation : null);
+    }
+
+    /**
+     * 表达式的值，占位符取绑定的参数值
+     *
+     * @param expression 值表达式
+     * @return value
+     */
+    public Object valueOf(Expression expression) {
+        if (expression instanceof JdbcParameter) {
+            Value value = parameter((JdbcParameter) expression);
+            return Objects.isNull(value) ? null : value.getValue();
+        }
+        Object node = expression.getASTNode().jjtGetValue();
+        return Reflection.invokeN(node.getClass(), "getValue", node, new Object[0]);
+    }
+
+    /**
+     * 以参数值替换占位符后的表达式SQL
+     *
+     * @param expression 表达式
+     * @return SQL
+     */
+    public String bind(Expression expression) {
+        StringBuilder buffer = new StringBuilder();
+        ExpressionDeParser expressionDeParser = new BindingExpressionDeParser();
+        expressionDeParser.setSelectVisitor(new SelectDeParser(expressionDeParser, buffer));
+        expressionDeParser.setBuffer(buffer);
+        expression.accept(expressionDeParser);
+        return buffer.toString();
+    }
+
+    /**
+     * 以参数值替换占位符后的查询SQL
+     *
+     * @param plainSelect 查询
+     * @return SQL
+     */
+    public String bind(PlainSelect plainSelect) {
+        StringBuilder buffer = new StringBuilder();
+        ExpressionDeParser expressionDeParser = new BindingExpressionDeParser();
+        SelectDeParser selectDeParser = new SelectDeParser(expressionDeParser, buffer);
+        expressionDeParser.setSelectVisitor(selectDeParser);
+        expressionDeParser.setBuffer(buffer);
+        plainSelect.accept(selectDeParser);
+        return buffer.toString();
+    }
+
+    /**
+     * 以参数值替换占位符后的查询SQL，查询项替换为给定项，其余子句与原查询一致
+     *
+     * @param plainSelect 只读的查询
+     * @param selectItems 查询项
+     * @return SQL
+     */
+    public String bind(PlainSelect plainSelect, List<SelectItem> selectItems) {
+        PlainSelect copy = new PlainSelect();
+        ReflectionUtils.shallowCopyFieldState(plainSelect, copy);
+        copy.setSelectItems(selectItems);
+        return bind(copy);
+    }
+
+    private Value parameter(JdbcParameter jdbcParameter) {
+        if (Objects.isNull(statementInformation) || Objects.isNull(jdbcParameter.getIndex())) {
+            return null;
+        }
+        return statementInformation.getParameterValue(jdbcParameter.getIndex() - 1);
+    }
+
+    private class BindingExpressionDeParser extends ExpressionDeParser {
+
+        @Override
+        public void visit(JdbcParameter jdbcParameter) {
+            Value value = parameter(jdbcParameter);
+            getBuffer().append(Objects.isNull(value) ? new Value().toString() : value.toString());
+        }
+    }
+}
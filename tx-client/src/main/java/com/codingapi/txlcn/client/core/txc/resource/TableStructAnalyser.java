@@ -16,53 +16,99 @@
 package com.codingapi.txlcn.client.core.txc.resource;
 
 import com.codingapi.txlcn.client.bean.DTXLocal;
+import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.core.txc.resource.def.bean.TableStruct;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.dbutils.DbUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Description: 数据库表结构分析
+ * Description: 数据库表结构分析。
+ * 表结构按 (数据源, catalog, 表) 缓存，经代理执行的 DDL 使其失效，另有过期时间兜底。
+ * 代理之外的表结构变更（迁移脚本、其它节点）需调用 {@link #invalidate(Connection, String)} 或 {@link #invalidateAll()}
  * <p>
  * Date: 2018/12/10
  *
  * @author ujued
  */
-
+@Slf4j
 public class TableStructAnalyser {
 
     private final DataSource dataSource;
 
+    private final long ttlMillis;
+
+    private static final String QUOTES = "`\"[";
+
+    private final Map<String, CachedStruct> tableStructs = new ConcurrentHashMap<>();
+
     @Autowired
-    public TableStructAnalyser(DataSource dataSource) {
+    public TableStructAnalyser(DataSource dataSource, TxClientConfig clientConfig) {
         this.dataSource = dataSource;
+        this.ttlMillis = clientConfig.getTxcTableStructTtl();
     }
 
+    /**
+     * 表结构，优先取缓存。返回的表结构在调用方间共享，只读使用
+     *
+     * @param connection connection
+     * @param table      table
+     * @return TableStruct
+     * @throws SQLException SQLException
+     */
     public TableStruct analyse(Connection connection, String table) throws SQLException {
+        TableName tableName = tableName(connection, table);
+        CachedStruct cached = tableStructs.get(tableName.key);
+        if (Objects.isNull(cached) || cached.isExpired(ttlMillis)) {
+            cached = new CachedStruct(load(connection, tableName));
+            tableStructs.put(tableName.key, cached);
+        }
+        return named(cached.tableStruct, table);
+    }
+
+    /**
+     * 表结构以调用方 SQL 中的表名呈现，全限定主键与 SQL 中的列名一致
+     */
+    private static TableStruct named(TableStruct tableStruct, String table) {
+        if (table.equals(tableStruct.getTableName())) {
+            return tableStruct;
+        }
+        return new TableStruct(table, tableStruct.getPrimaryKeys(), null, tableStruct.getColumns());
+    }
+
+    private TableStruct load(Connection connection, TableName tableName) throws SQLException {
         ResultSet structRs = null;
         ResultSet columnSet = null;
-        TableStruct tableStruct = new TableStruct(table);
+        TableStruct tableStruct = new TableStruct(tableName.name);
         try {
-            structRs = connection.getMetaData().getPrimaryKeys(connection.getCatalog(), null, table);
-            columnSet = connection.getMetaData().getColumns(null, "%", table, "%");
+            structRs = connection.getMetaData().getPrimaryKeys(tableName.catalog, tableName.schema, tableName.name);
+            columnSet = connection.getMetaData().getColumns(tableName.catalog, tableName.schema, tableName.name, "%");
             while (structRs.next()) {
                 tableStruct.getPrimaryKeys().add(structRs.getString("COLUMN_NAME"));
             }
             while (columnSet.next()) {
                 tableStruct.getColumns().put(columnSet.getString("COLUMN_NAME"), columnSet.getString("TYPE_NAME"));
             }
-        } catch (SQLException e) {
+        } finally {
             try {
                 DbUtils.close(structRs);
                 DbUtils.close(columnSet);
             } catch (SQLException ignored) {
             }
-            throw e;
         }
+        // 共享前初始化
+        tableStruct.getFullyQualifiedPrimaryKeys();
         return tableStruct;
     }
 
@@ -79,6 +125,87 @@ public class TableStructAnalyser {
         }
     }
 
+    /**
+     * 预加载数据源所有表的结构，业务写操作不再查询元数据
+     *
+     * @throws SQLException SQLException
+     */
+    public void preload() throws SQLException {
+        Connection connection = null;
+        ResultSet tableSet = null;
+        try {
+            DTXLocal.makeUnProxy();
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            List<String> tables = new ArrayList<>();
+            tableSet = connection.getMetaData().getTables(connection.getCatalog(), null, "%", new String[]{"TABLE"});
+            while (tableSet.next()) {
+                tables.add(tableSet.getString("TABLE_NAME"));
+            }
+            for (String table : tables) {
+                TableName tableName = tableName(connection, table);
+                tableStructs.put(tableName.key, new CachedStruct(load(connection, tableName)));
+            }
+            log.info("preloaded struct of {} tables.", tables.size());
+        } finally {
+            DTXLocal.undoProxyStatus();
+            DbUtils.close(tableSet);
+            DbUtils.close(connection);
+        }
+    }
+
+    /**
+     * 表结构失效，表结构变更后调用
+     *
+     * @param connection connection
+     * @param table      table
+     * @throws SQLException SQLException
+     */
+    public void invalidate(Connection connection, String table) throws SQLException {
+        tableStructs.remove(tableName(connection, table).key);
+    }
+
+    /**
+     * 所有表结构失效
+     */
+    public void invalidateAll() {
+        tableStructs.clear();
+    }
+
+    /**
+     * 规范化表名，缓存键与元数据查询都经此处：去掉标识符引号，按数据库存储标识符的大小写转换，
+     * 带前缀时前缀按数据库支持作为 catalog 或 schema
+     */
+    private static TableName tableName(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String catalog = connection.getCatalog();
+        String schema = null;
+        String name = table;
+        int dot = table.lastIndexOf('.');
+        if (dot > 0) {
+            String prefix = identifier(metaData, table.substring(0, dot));
+            if (metaData.supportsCatalogsInDataManipulation()) {
+                catalog = prefix;
+            } else {
+                schema = prefix;
+            }
+            name = table.substring(dot + 1);
+        }
+        return new TableName(metaData.getURL(), catalog, schema, identifier(metaData, name));
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (identifier.length() > 1 && QUOTES.indexOf(identifier.charAt(0)) >= 0) {
+            return identifier.substring(1, identifier.length() - 1);
+        }
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase();
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase();
+        }
+        return identifier;
+    }
 
     public boolean existsTable(Connection connection, String table) throws SQLException {
         ResultSet resultSet = null;
@@ -114,4 +241,37 @@ public class TableStructAnalyser {
             DTXLocal.undoProxyStatus();
         }
     }
+
+    private static class TableName {
+
+        private final String catalog;
+
+        private final String schema;
+
+        private final String name;
+
+        private final String key;
+
+        private TableName(String url, String catalog, String schema, String name) {
+            this.catalog = catalog;
+            this.schema = schema;
+            this.name = name;
+            this.key = url + '|' + catalog + '|' + schema + '|' + name;
+        }
+    }
+
+    private static class CachedStruct {
+
+        private final TableStruct tableStruct;
+
+        private final long loadTime = System.currentTimeMillis();
+
+        private CachedStruct(TableStruct tableStruct) {
+            this.tableStruct = tableStruct;
+        }
+
+        private boolean isExpired(long ttlMillis) {
+            return ttlMillis > 0 && System.currentTimeMillis() - loadTime > ttlMillis;
+        }
+    }
 }
@@ -15,6 +15,7 @@
  */
 package com.codingapi.txlcn.client.core.txc.resource;
 
+import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.core.txc.resource.def.SqlExecuteInterceptor;
 import com.codingapi.txlcn.client.core.txc.resource.def.TxcService;
 import com.codingapi.txlcn.client.core.txc.resource.def.TxcSqlExecutor;
@@ -56,8 +57,8 @@ public class TxcConfiguration {
     }
 
     @Bean
-    public TableStructAnalyser tableStructAnalyser(DataSource dataSource) {
-        return new TableStructAnalyser(dataSource);
+    public TableStructAnalyser tableStructAnalyser(DataSource dataSource, TxClientConfig clientConfig) {
+        return new TableStructAnalyser(dataSource, clientConfig);
     }
 
     @Bean
@@ -76,8 +77,10 @@ public class TxcConfiguration {
     }
 
     @Bean
-    public TxcJdbcEventListener txcJdbcEventListener(SqlExecuteInterceptor sqlExecuteInterceptor) {
-        return new TxcJdbcEventListener(sqlExecuteInterceptor);
+    public TxcJdbcEventListener txcJdbcEventListener(SqlExecuteInterceptor sqlExecuteInterceptor,
+                                                     TableStructAnalyser tableStructAnalyser, TxClientConfig clientConfig) {
+        return new TxcJdbcEventListener(sqlExecuteInterceptor, tableStructAnalyser,
+                new ParsedStatementCache(clientConfig.getTxcStatementCacheSize()));
     }
 
     @Bean
@@ -15,6 +15,7 @@
  */
 package com.codingapi.txlcn.client.core.txc.resource;
 
+import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.core.txc.resource.def.TxcSqlExecutor;
 import com.codingapi.txlcn.client.core.txc.resource.init.TxcSql;
 import com.codingapi.txlcn.commons.runner.TxLcnInitializer;
@@ -40,6 +41,9 @@ public class TxcInitializer implements TxLcnInitializer {
     @Autowired
     private TxcSqlExecutor txcSqlExecutor;
 
+    @Autowired
+    private TxClientConfig clientConfig;
+
 
     @Override
     public void init() throws Exception {
@@ -49,5 +53,8 @@ public class TxcInitializer implements TxLcnInitializer {
         if (!tableStructAnalyser.existsTable(txcSql.undoLogTableName())) {
             txcSqlExecutor.createUndoLogTable();
         }
+        if (clientConfig.isTxcPreloadTableStruct()) {
+            tableStructAnalyser.preload();
+        }
     }
 }
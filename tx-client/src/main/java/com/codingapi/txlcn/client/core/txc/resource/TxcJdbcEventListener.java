@@ -26,7 +26,10 @@ import lombok.extern.slf4j.Slf4j;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.alter.Alter;
+import net.sf.jsqlparser.statement.create.table.CreateTable;
 import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.drop.Drop;
 import net.sf.jsqlparser.statement.insert.Insert;
 import net.sf.jsqlparser.statement.select.Select;
 import net.sf.jsqlparser.statement.update.Update;
@@ -41,14 +44,20 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
 
     private final SqlExecuteInterceptor sqlExecuteInterceptor;
 
+    private final TableStructAnalyser tableStructAnalyser;
 
-    public TxcJdbcEventListener(SqlExecuteInterceptor sqlExecuteInterceptor) {
+    private final ParsedStatementCache parsedStatementCache;
+
+    public TxcJdbcEventListener(SqlExecuteInterceptor sqlExecuteInterceptor, TableStructAnalyser tableStructAnalyser,
+                                ParsedStatementCache parsedStatementCache) {
         this.sqlExecuteInterceptor = sqlExecuteInterceptor;
+        this.tableStructAnalyser = tableStructAnalyser;
+        this.parsedStatementCache = parsedStatementCache;
     }
 
     @Override
     public String onBeforeAnyExecute(StatementInformation statementInformation) throws SQLException {
-        String sql = statementInformation.getSqlWithValues();
+        String sql = statementInformation.getSql();
 
         // 当前业务链接
         DTXLocal.cur().setResource(statementInformation.getStatement().getConnection());
@@ -56,17 +65,20 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
         // 拦截处理
         try {
             long startTime = System.currentTimeMillis();
-            Statement statement = CCJSqlParserUtil.parse(sql);
+            // 预编译语句按占位符 SQL 缓存解析结果，参数值单独绑定
+            Statement statement = statementInformation instanceof PreparedStatementInformation ?
+                    parsedStatementCache.parse(sql) : CCJSqlParserUtil.parse(sql);
             log.debug("statement > {}", statement);
             statementInformation.setAttachment(statement);
+            SqlParameterBinder parameterBinder = SqlParameterBinder.of(statementInformation);
             if (statement instanceof Update) {
-                sqlExecuteInterceptor.preUpdate((Update) statement);
+                sqlExecuteInterceptor.preUpdate((Update) statement, parameterBinder);
             } else if (statement instanceof Delete) {
-                sqlExecuteInterceptor.preDelete((Delete) statement);
+                sqlExecuteInterceptor.preDelete((Delete) statement, parameterBinder);
             } else if (statement instanceof Insert) {
                 sqlExecuteInterceptor.preInsert((Insert) statement);
             } else if (statement instanceof Select) {
-                sqlExecuteInterceptor.preSelect(new LockableSelect((Select) statement));
+                sqlExecuteInterceptor.preSelect(new LockableSelect((Select) statement), parameterBinder);
             }
             log.debug("used time: {} ms", System.currentTimeMillis() - startTime);
         } catch (JSQLParserException e) {
@@ -77,6 +89,7 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
 
     @Override
     public void onAfterExecute(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        invalidateTableStruct(statementInformation);
         if (statementInformation.getAttachment() instanceof Insert) {
             try {
                 sqlExecuteInterceptor.postInsert(statementInformation);
@@ -88,6 +101,7 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
 
     @Override
     public void onAfterExecute(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        invalidateTableStruct(statementInformation);
         if (statementInformation.getAttachment() instanceof Insert) {
             try {
                 sqlExecuteInterceptor.postInsert(statementInformation);
@@ -99,6 +113,7 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
 
     @Override
     public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        invalidateTableStruct(statementInformation);
         if (statementInformation.getAttachment() instanceof Insert) {
             try {
                 sqlExecuteInterceptor.postInsert(statementInformation);
@@ -111,6 +126,7 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
 
     @Override
     public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        invalidateTableStruct(statementInformation);
         if (statementInformation.getAttachment() instanceof Insert) {
             try {
                 sqlExecuteInterceptor.postInsert(statementInformation);
@@ -120,4 +136,26 @@ public class TxcJdbcEventListener extends P6spyJdbcEventListener {
         }
     }
 
+    /**
+     * DDL 执行后失效相关表结构
+     *
+     * @param statementInformation statementInformation
+     */
+    private void invalidateTableStruct(StatementInformation statementInformation) {
+        Object statement = statementInformation.getAttachment();
+        try {
+            if (statement instanceof Alter) {
+                tableStructAnalyser.invalidate(statementInformation.getStatement().getConnection(),
+                        ((Alter) statement).getTable().getName());
+            } else if (statement instanceof CreateTable) {
+                tableStructAnalyser.invalidate(statementInformation.getStatement().getConnection(),
+                        ((CreateTable) statement).getTable().getName());
+            } else if (statement instanceof Drop) {
+                tableStructAnalyser.invalidateAll();
+            }
+        } catch (SQLException e) {
+            tableStructAnalyser.invalidateAll();
+        }
+    }
+
 }
@@ -64,6 +64,7 @@ public class TxcServiceImpl implements TxcService {
             // key value MD5 HEX to store
             lockInfo.setKeyValue(DigestUtils.md5DigestAsHex(lockInfo.getKeyValue().getBytes(StandardCharsets.UTF_8)));
             txcSqlExecutor.tryLock(connection, lockInfo);
+            rollbackInfo.setLocked(true);
         } catch (SQLException e) {
             rollbackInfo.setStatus(-1);
             throw new TxcLogicException("Resource is locked! Place try again later.");
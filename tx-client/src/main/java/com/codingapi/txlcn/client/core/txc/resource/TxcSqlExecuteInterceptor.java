@@ -62,7 +62,7 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
     }
 
     @Override
-    public void preUpdate(Update update) throws SQLException {
+    public void preUpdate(Update update, SqlParameterBinder parameterBinder) throws SQLException {
         // 获取线程传递参数
         String groupId = DTXLocal.cur().getGroupId();
         String unitId = DTXLocal.cur().getUnitId();
@@ -74,10 +74,8 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
         List<String> columns = new ArrayList<>(update.getColumns().size());
         List<String> primaryKeys = new ArrayList<>(3);
         List<String> tables = new ArrayList<>(update.getTables().size());
-        update.getColumns().forEach(column -> {
-            column.setTable(update.getTables().get(0));
-            columns.add(column.getFullyQualifiedName());
-        });
+        update.getColumns().forEach(column ->
+                columns.add(new Column(update.getTables().get(0), column.getColumnName()).getFullyQualifiedName()));
         for (Table table : update.getTables()) {
             tables.add(table.getName());
             TableStruct tableStruct = tableStructAnalyser.analyse(connection, table.getName());
@@ -93,14 +91,14 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
                     .setColumns(columns)
                     .setPrimaryKeys(primaryKeys)
                     .setTables(tables)
-                    .setWhereSql(update.getWhere() == null ? "1=1" : update.getWhere().toString()));
+                    .setWhereSql(update.getWhere() == null ? "1=1" : parameterBinder.bind(update.getWhere())));
         } catch (TxcLogicException e) {
             throw new SQLException(e.getMessage());
         }
     }
 
     @Override
-    public void preDelete(Delete delete) throws SQLException {
+    public void preDelete(Delete delete, SqlParameterBinder parameterBinder) throws SQLException {
         log.debug("do pre delete: {}", delete);
 
         // 获取线程传递参数
@@ -110,16 +108,15 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
         Connection connection = (Connection) DTXLocal.cur().getResource();
 
         // 获取Sql Table
-        if (delete.getTables().size() == 0) {
-            delete.setTables(Collections.singletonList(delete.getTable()));
-        }
+        List<Table> deleteTables = delete.getTables().size() == 0 ?
+                Collections.singletonList(delete.getTable()) : delete.getTables();
 
         // Delete Sql 数据
-        List<String> tables = new ArrayList<>(delete.getTables().size());
+        List<String> tables = new ArrayList<>(deleteTables.size());
         List<String> primaryKeys = new ArrayList<>(3);
         List<String> columns = new ArrayList<>();
 
-        for (Table table : delete.getTables()) {
+        for (Table table : deleteTables) {
             TableStruct tableStruct = tableStructAnalyser.analyse(connection, table.getName());
             tableStruct.getColumns().forEach((k, v) -> {
                 columns.add(tableStruct.getTableName() + SqlUtils.DOT + k);
@@ -136,7 +133,7 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
                     .setGroupId(groupId)
                     .setUnitId(unitId)
                     .setRollbackInfo(rollbackInfo)
-                    .setSqlWhere(delete.getWhere().toString())
+                    .setSqlWhere(parameterBinder.bind(delete.getWhere()))
                     .setColumns(columns)
                     .setPrimaryKeys(primaryKeys)
                     .setTables(tables));
@@ -160,7 +157,8 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
 
         // 解决主键
         PrimaryKeyListVisitor primaryKeyListVisitor = new PrimaryKeyListVisitor(insert.getTable(),
-                insert.getColumns(), tableStruct.getFullyQualifiedPrimaryKeys());
+                insert.getColumns(), tableStruct.getFullyQualifiedPrimaryKeys(),
+                SqlParameterBinder.of(statementInformation));
         insert.getItemsList().accept(primaryKeyListVisitor);
 
         // 自增主键
@@ -202,7 +200,7 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
     }
 
     @Override
-    public void preSelect(LockableSelect lockableSelect) throws SQLException {
+    public void preSelect(LockableSelect lockableSelect, SqlParameterBinder parameterBinder) throws SQLException {
         // 忽略无锁的查询
         if (!lockableSelect.shouldLock()) {
             return;
@@ -246,10 +244,12 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
                 }
             }
         }
-        plainSelect.setSelectItems(selectItems);
+
+        // 语句为共享的解析结果，在其副本上替换查询项，其余子句保持不变
+        String lockSql = parameterBinder.bind(plainSelect, selectItems);
 
         // 尝试锁定
-        log.info("lock select sql: {}", plainSelect);
+        log.info("lock select sql: {}", lockSql);
         String groupId = DTXLocal.cur().getGroupId();
         String unitId = DTXLocal.cur().getUnitId();
         RollbackInfo rollbackInfo = (RollbackInfo) DTXLocal.cur().getAttachment();
@@ -259,7 +259,7 @@ public class TxcSqlExecuteInterceptor implements SqlExecuteInterceptor {
         selectImageParams.setUnitId(unitId);
         selectImageParams.setPrimaryKeys(primaryKeys);
         selectImageParams.setRollbackInfo(rollbackInfo);
-        selectImageParams.setSql(plainSelect.toString());
+        selectImageParams.setSql(lockSql);
 
         try {
             txcService.lockSelect(selectImageParams, lockableSelect.isxLock());
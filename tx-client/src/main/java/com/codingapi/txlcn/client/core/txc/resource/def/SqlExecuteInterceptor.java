@@ -15,6 +15,7 @@
  */
 package com.codingapi.txlcn.client.core.txc.resource.def;
 
+import com.codingapi.txlcn.client.core.txc.resource.SqlParameterBinder;
 import com.codingapi.txlcn.client.core.txc.resource.def.bean.LockableSelect;
 import com.codingapi.txlcn.jdbcproxy.p6spy.common.StatementInformation;
 import net.sf.jsqlparser.statement.delete.Delete;
@@ -34,23 +35,25 @@ public interface SqlExecuteInterceptor {
     /**
      * 程序业务{@code update} 语句执行前植入事务操作
      *
-     * @param update SQL
+     * @param update          SQL，只读
+     * @param parameterBinder 本次执行的参数
      * @throws SQLException 事务判断资源锁定、不支持此SQL时抛出
      */
-    void preUpdate(Update update) throws SQLException;
+    void preUpdate(Update update, SqlParameterBinder parameterBinder) throws SQLException;
 
     /**
      * 程序业务{@code delete} 语句执行前植入事务操作
      *
-     * @param delete SQL
+     * @param delete          SQL，只读
+     * @param parameterBinder 本次执行的参数
      * @throws SQLException 事务判断资源锁定、不支持此SQL时抛出
      */
-    void preDelete(Delete delete) throws SQLException;
+    void preDelete(Delete delete, SqlParameterBinder parameterBinder) throws SQLException;
 
     /**
      * 程序业务{@code insert} 语句执行前植入事务操作
      *
-     * @param insert SQL
+     * @param insert SQL，只读
      * @throws SQLException 不支持此SQL时抛出
      */
     void preInsert(Insert insert) throws SQLException;
@@ -66,9 +69,10 @@ public interface SqlExecuteInterceptor {
     /**
      * 程序业务{@code select} 语句执行前植入事务操作
      *
-     * @param lockableSelect SelectSQL解析后的对象
+     * @param lockableSelect  SelectSQL解析后的对象，只读
+     * @param parameterBinder 本次执行的参数
      * @throws SQLException 事务判断资源锁定、不支持此SQL时抛出
      */
-    void preSelect(LockableSelect lockableSelect) throws SQLException;
+    void preSelect(LockableSelect lockableSelect, SqlParameterBinder parameterBinder) throws SQLException;
 
 }
@@ -44,4 +44,18 @@ public class RollbackInfo implements Serializable {
      * 此时可能是资源被锁定时失败，并未对资源做任何操作
      */
     private transient int status;
+
+    /**
+     * 是否锁定过资源
+     */
+    private transient boolean locked;
+
+    /**
+     * 未锁定资源且无回滚语句，即事务单元只读
+     *
+     * @return result
+     */
+    public boolean isReadOnly() {
+        return !locked && rollbackSqlList.isEmpty();
+    }
 }
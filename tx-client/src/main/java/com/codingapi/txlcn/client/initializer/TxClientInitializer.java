@@ -15,7 +15,6 @@
  */
 package com.codingapi.txlcn.client.initializer;
 
-import com.codingapi.txlcn.client.aspectlog.AspectLogHelper;
 import com.codingapi.txlcn.client.message.TXLCNClientMessageServer;
 import com.codingapi.txlcn.client.support.checking.DTXChecking;
 import com.codingapi.txlcn.client.support.checking.SimpleDTXChecking;
@@ -34,8 +33,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class TxClientInitializer implements TxLcnInitializer {
 
-    private final AspectLogHelper aspectLogHelper;
-
     private final TXLCNClientMessageServer txLcnClientMessageServer;
 
     private final DTXChecking dtxChecking;
@@ -43,11 +40,9 @@ public class TxClientInitializer implements TxLcnInitializer {
     private final TransactionCleanTemplate transactionCleanTemplate;
 
     @Autowired
-    public TxClientInitializer(AspectLogHelper aspectLogHelper,
-                               TXLCNClientMessageServer txLcnClientMessageServer,
+    public TxClientInitializer(TXLCNClientMessageServer txLcnClientMessageServer,
                                DTXChecking dtxChecking,
                                TransactionCleanTemplate transactionCleanTemplate) {
-        this.aspectLogHelper = aspectLogHelper;
         this.txLcnClientMessageServer = txLcnClientMessageServer;
         this.dtxChecking = dtxChecking;
         this.transactionCleanTemplate = transactionCleanTemplate;
@@ -55,7 +50,6 @@ public class TxClientInitializer implements TxLcnInitializer {
 
     @Override
     public void init() throws Exception {
-        aspectLogHelper.init();
         txLcnClientMessageServer.init();
 
         // aware the clean template to the simpleDtxChecking
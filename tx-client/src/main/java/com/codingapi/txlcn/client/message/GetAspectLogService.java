@@ -15,14 +15,11 @@
  */
 package com.codingapi.txlcn.client.message;
 
-import com.codingapi.txlcn.client.aspectlog.AspectLog;
-import com.codingapi.txlcn.client.aspectlog.AspectLogHelper;
+import com.codingapi.txlcn.client.aspectlog.AspectLogger;
 import com.codingapi.txlcn.client.message.helper.RpcExecuteService;
 import com.codingapi.txlcn.client.message.helper.TransactionCmd;
 import com.codingapi.txlcn.commons.bean.TransactionInfo;
-import com.codingapi.txlcn.commons.exception.SerializerException;
 import com.codingapi.txlcn.commons.exception.TxClientException;
-import com.codingapi.txlcn.commons.util.serializer.SerializerContext;
 import com.codingapi.txlcn.spi.message.params.GetAspectLogParams;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -39,26 +36,21 @@ import java.util.Objects;
 @Component("rpc_get-aspect-log")
 public class GetAspectLogService implements RpcExecuteService {
 
-    private final AspectLogHelper txLogHelper;
+    private final AspectLogger aspectLogger;
 
     @Autowired
-    public GetAspectLogService(AspectLogHelper txLogHelper) {
-        this.txLogHelper = txLogHelper;
+    public GetAspectLogService(AspectLogger aspectLogger) {
+        this.aspectLogger = aspectLogger;
     }
 
     @Override
     public Serializable execute(TransactionCmd transactionCmd) throws TxClientException {
-        try {
-            GetAspectLogParams getAspectLogParams =transactionCmd.getMsg().loadBean(GetAspectLogParams.class);
-            AspectLog txLog = txLogHelper.getTxLog(getAspectLogParams.getGroupId(), getAspectLogParams.getUnitId());
-            if (Objects.isNull(txLog)) {
-                throw new TxClientException("non exists aspect log.");
-            }
-
-            TransactionInfo transactionInfo = SerializerContext.getInstance().deSerialize(txLog.getBytes(), TransactionInfo.class);
-            return transactionInfo.toJsonObject();
-        } catch (SerializerException e) {
-            throw new TxClientException(e);
+        GetAspectLogParams getAspectLogParams = transactionCmd.getMsg().loadBean(GetAspectLogParams.class);
+        TransactionInfo transactionInfo =
+                aspectLogger.getTransactionInfo(getAspectLogParams.getGroupId(), getAspectLogParams.getUnitId());
+        if (Objects.isNull(transactionInfo)) {
+            throw new TxClientException("non exists aspect log.");
         }
+        return transactionInfo.toJsonObject();
     }
 }
@@ -15,19 +15,21 @@
  */
 package com.codingapi.txlcn.client.message.helper;
 
+import com.codingapi.txlcn.spi.message.LCNCmdType;
 import com.codingapi.txlcn.spi.message.RpcAnswer;
 import com.codingapi.txlcn.spi.message.RpcClient;
 import com.codingapi.txlcn.spi.message.dto.MessageDto;
 import com.codingapi.txlcn.spi.message.dto.RpcCmd;
 import com.codingapi.txlcn.spi.message.exception.RpcException;
 import com.codingapi.txlcn.client.support.TXLCNTransactionBeanHelper;
-import com.codingapi.txlcn.commons.exception.TxClientException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Description: TxClient对RPC命令回复
@@ -44,6 +46,8 @@ public class ClientRpcAnswer implements RpcAnswer {
 
     private final RpcClient rpcClient;
 
+    private final LongAdder rejectedActions = new LongAdder();
+
     @Autowired
     public ClientRpcAnswer(TXLCNTransactionBeanHelper transactionBeanHelper, RpcClient rpcClient) {
         this.transactionBeanHelper = transactionBeanHelper;
@@ -53,27 +57,61 @@ public class ClientRpcAnswer implements RpcAnswer {
     @Override
     public void callback(RpcCmd rpcCmd) {
         log.debug("Receive Message: {}", rpcCmd.getMsg());
-        TransactionCmd transactionCmd = MessageParser.parser(rpcCmd);
-        String transactionType = transactionCmd.getTransactionType();
-        String action = transactionCmd.getMsg().getAction();
+        String action = rpcCmd.getMsg().getAction();
+        LCNCmdType cmdType = LCNCmdType.fromAction(action);
+        if (Objects.isNull(cmdType)) {
+            reject(rpcCmd, action);
+            return;
+        }
+        TransactionCmd transactionCmd = MessageParser.parser(rpcCmd, cmdType);
         RpcExecuteService executeService =
-                transactionBeanHelper.loadRpcExecuteService(transactionType, transactionCmd.getType());
-        MessageDto messageDto = null;
-        try {
-            Serializable message = executeService.execute(transactionCmd);
-            messageDto = MessageCreator.notifyUnitOkResponse(message,action);
-        } catch (TxClientException e) {
-            log.error("message > execute error.", e);
-            messageDto = MessageCreator.notifyUnitFailResponse(e,action);
-        } finally {
-            if (Objects.nonNull(rpcCmd.getKey())) {
-                try {
-                    rpcCmd.setMsg(messageDto);
-                    rpcClient.send(rpcCmd);
-                } catch (RpcException e) {
-                    log.error("response request[{}] error. error message: {}", rpcCmd.getKey(), e.getMessage());
-                }
+                transactionBeanHelper.rpcExecuteService(transactionCmd.getTransactionType(), cmdType);
+        if (Objects.isNull(executeService)) {
+            reject(rpcCmd, action);
+            return;
+        }
+        // 耗时的业务（如LCN提交）由执行服务异步完成，完成后再回复，不占用通讯线程
+        executeService.executeAsync(transactionCmd).whenComplete((message, ex) -> respond(rpcCmd, action, message, ex));
+    }
+
+    private void respond(RpcCmd rpcCmd, String action, Serializable message, Throwable ex) {
+        MessageDto messageDto;
+        if (Objects.isNull(ex)) {
+            messageDto = MessageCreator.notifyUnitOkResponse(message, action);
+        } else {
+            Throwable cause = ex instanceof CompletionException && Objects.nonNull(ex.getCause()) ? ex.getCause() : ex;
+            log.error("message > execute error.", cause);
+            messageDto = MessageCreator.notifyUnitFailResponse(cause, action);
+        }
+        if (Objects.nonNull(rpcCmd.getKey())) {
+            try {
+                rpcCmd.setMsg(messageDto);
+                rpcClient.send(rpcCmd);
+            } catch (RpcException e) {
+                log.error("response request[{}] error. error message: {}", rpcCmd.getKey(), e.getMessage());
             }
         }
     }
+
+    private void reject(RpcCmd rpcCmd, String action) {
+        rejectedActions.increment();
+        log.debug("rejected unsupported action: {}", action);
+        if (Objects.nonNull(rpcCmd.getKey())) {
+            try {
+                rpcCmd.setMsg(MessageCreator.notifyUnitFailResponse("unsupported action.", action));
+                rpcClient.send(rpcCmd);
+            } catch (RpcException e) {
+                log.error("response request[{}] error. error message: {}", rpcCmd.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 被拒绝的消息数量
+     *
+     * @return count
+     */
+    public long getRejectedActionCount() {
+        return rejectedActions.sum();
+    }
 }
@@ -20,6 +20,7 @@ import com.codingapi.txlcn.spi.message.dto.MessageDto;
 import com.codingapi.txlcn.spi.message.params.*;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * @author lorne
@@ -114,6 +115,21 @@ public class MessageCreator {
         return messageDto;
     }
 
+    /**
+     * 批量询问事务状态指令
+     *
+     * @param units 事务单元
+     * @return MessageDto
+     */
+    public static MessageDto askTransactionStates(List<AskTransactionStateParams> units) {
+        MessageDto messageDto = new MessageDto();
+        // TM 按 groupId 分派消息，批量询问只读，取首个事务组即可
+        messageDto.setGroupId(units.get(0).getGroupId());
+        messageDto.setAction(MessageConstants.ACTION_ASK_TRANSACTION_STATES);
+        messageDto.setData(new AskTransactionStatesParams(units, null));
+        return messageDto;
+    }
+
     /**
      * 写异常信息指令
      *
@@ -16,7 +16,6 @@
 package com.codingapi.txlcn.client.message.helper;
 
 import com.codingapi.txlcn.spi.message.LCNCmdType;
-import com.codingapi.txlcn.spi.message.MessageConstants;
 import com.codingapi.txlcn.spi.message.dto.RpcCmd;
 import com.codingapi.txlcn.spi.message.params.NotifyUnitParams;
 import lombok.extern.slf4j.Slf4j;
@@ -32,12 +31,16 @@ public class MessageParser {
 
 
     public static TransactionCmd parser(RpcCmd rpcCmd) {
+        return parser(rpcCmd, LCNCmdType.parserCmd(rpcCmd.getMsg().getAction()));
+    }
+
+    public static TransactionCmd parser(RpcCmd rpcCmd, LCNCmdType cmdType) {
         TransactionCmd cmd = new TransactionCmd();
         cmd.setRequestKey(rpcCmd.getKey());
-        cmd.setType(LCNCmdType.parserCmd(rpcCmd.getMsg().getAction()));
+        cmd.setType(cmdType);
         cmd.setGroupId(rpcCmd.getMsg().getGroupId());
 
-        if (rpcCmd.getMsg().getAction().equals(MessageConstants.ACTION_NOTIFY_UNIT)) {
+        if (cmdType == LCNCmdType.notifyUnit) {
             NotifyUnitParams notifyUnitParams = rpcCmd.getMsg().loadBean(NotifyUnitParams.class);
             cmd.setTransactionType(notifyUnitParams.getUnitType());
         }
@@ -19,6 +19,7 @@ package com.codingapi.txlcn.client.message.helper;
 import com.codingapi.txlcn.commons.exception.TxClientException;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  *  LCN分布式事务资源控制
@@ -34,4 +35,19 @@ public interface RpcExecuteService {
      */
     Serializable execute(TransactionCmd transactionCmd) throws TxClientException;
 
+    /**
+     * 异步执行业务，完成后回复请求方。默认在调用线程同步执行
+     * @param  transactionCmd transactionCmd
+     * @return future
+     */
+    default CompletableFuture<Serializable> executeAsync(TransactionCmd transactionCmd) {
+        CompletableFuture<Serializable> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(transactionCmd));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
 }
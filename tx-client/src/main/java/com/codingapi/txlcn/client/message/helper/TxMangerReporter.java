@@ -15,6 +15,9 @@
  */
 package com.codingapi.txlcn.client.message.helper;
 
+import com.alibaba.fastjson.JSON;
+import com.codingapi.txlcn.client.aspectlog.AspectLogDbProperties;
+import com.codingapi.txlcn.commons.runner.TxLcnInitializer;
 import com.codingapi.txlcn.spi.message.dto.MessageDto;
 import com.codingapi.txlcn.spi.message.params.TxExceptionParams;
 import com.codingapi.txlcn.spi.message.RpcClient;
@@ -23,23 +26,96 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Description: 客户端上报Manager
+ * 上报只入队，由独立线程发送；发送失败按指数退避加随机抖动重试。
+ * 队列有界，停机时未发送的上报落盘，下次启动时重新入队
  * Date: 2018/12/29
  *
  * @author ujued
  */
 @Component
 @Slf4j
-public class TxMangerReporter {
+public class TxMangerReporter implements TxLcnInitializer {
+
+    private static final String REPORT_ERROR_MESSAGE = "report transaction transactionState error";
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private static final long BASE_BACKOFF_MILLIS = 100;
+
+    private static final long MAX_BACKOFF_MILLIS = 30 * 1000;
+
+    private static final long MAX_SPIN_BACKOFF_MILLIS = 1000;
 
     private final RpcClient rpcClient;
 
-    private static final String REPORT_ERROR_MESSAGE = "report transaction transactionState error";
+    private final Path pendingFile;
+
+    private final DelayQueue<PendingReport> retryQueue = new DelayQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private volatile Thread worker;
 
     @Autowired
-    public TxMangerReporter(RpcClient rpcClient) {
+    public TxMangerReporter(RpcClient rpcClient, AspectLogDbProperties aspectLogDbProperties) {
         this.rpcClient = rpcClient;
+        this.pendingFile = Paths.get(aspectLogDbProperties.getFilePath() + "-reports");
+    }
+
+    @Override
+    public void init() throws Exception {
+        if (Files.exists(pendingFile)) {
+            List<String> lines = Files.readAllLines(pendingFile, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (!line.isEmpty()) {
+                    enqueue(new PendingReport(JSON.parseObject(line, TxExceptionParams.class), 0));
+                }
+            }
+            Files.delete(pendingFile);
+            log.info("reload {} pending reports.", lines.size());
+        }
+        Thread thread = new Thread(this::drain, "txlcn-manager-reporter");
+        thread.setDaemon(true);
+        thread.start();
+        this.worker = thread;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        Thread thread = this.worker;
+        if (Objects.nonNull(thread)) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        List<PendingReport> reports = new ArrayList<>();
+        retryQueue.drainTo(reports);
+        if (reports.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>(reports.size());
+        reports.forEach(report -> lines.add(JSON.toJSONString(report.params)));
+        try {
+            Files.write(pendingFile, lines, StandardCharsets.UTF_8);
+            log.info("persist {} pending reports.", lines.size());
+        } catch (IOException e) {
+            log.error("persist pending reports error. lost: {}", lines, e);
+        }
     }
 
     /**
@@ -75,8 +151,71 @@ public class TxMangerReporter {
         report(txExceptionParams);
     }
 
+    /**
+     * 待发送的上报数量
+     *
+     * @return count
+     */
+    public int pendingReports() {
+        return pendingCount.get();
+    }
+
     private void report(TxExceptionParams exceptionParams) {
-        sendUntilNonManager(rpcClient, MessageCreator.writeTxException(exceptionParams), REPORT_ERROR_MESSAGE);
+        enqueue(new PendingReport(exceptionParams, 0));
+    }
+
+    private void enqueue(PendingReport report) {
+        if (pendingCount.incrementAndGet() > QUEUE_CAPACITY) {
+            pendingCount.decrementAndGet();
+            log.error("{}. report queue is full, drop: {}", REPORT_ERROR_MESSAGE, report.params);
+            return;
+        }
+        retryQueue.offer(report);
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            PendingReport report;
+            try {
+                report = retryQueue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                rpcClient.send(rpcClient.loadRemoteKey(), MessageCreator.writeTxException(report.params));
+                pendingCount.decrementAndGet();
+            } catch (RpcException e) {
+                PendingReport retry = report.next();
+                log.warn("{}. retry after {} ms. attempt: {}", REPORT_ERROR_MESSAGE,
+                        retry.getDelay(TimeUnit.MILLISECONDS), retry.attempt);
+                retryQueue.offer(retry);
+            } catch (Throwable e) {
+                pendingCount.decrementAndGet();
+                log.error("{}. drop: {}", REPORT_ERROR_MESSAGE, report.params, e);
+            }
+        }
+    }
+
+    /**
+     * 指数退避加随机抖动，取 [delay/2, delay)
+     *
+     * @param attempt 第几次重试
+     * @param max     最大退避
+     * @return 毫秒
+     */
+    private static long backoffMillis(int attempt, long max) {
+        long delay = Math.min(max, BASE_BACKOFF_MILLIS << Math.min(attempt, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(Math.max(1, delay / 2));
+    }
+
+    private static boolean sleepBackoff(int attempt) {
+        try {
+            Thread.sleep(backoffMillis(attempt, MAX_SPIN_BACKOFF_MILLIS));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
@@ -87,7 +226,7 @@ public class TxMangerReporter {
      * @param whenNonManager 异常提示
      */
     public static void sendUntilNonManager(RpcClient rpcClient, MessageDto messageDto, String whenNonManager) {
-        while (true) {
+        for (int attempt = 0; ; attempt++) {
             try {
                 rpcClient.send(rpcClient.loadRemoteKey(), messageDto);
                 break;
@@ -96,6 +235,10 @@ public class TxMangerReporter {
                     log.error(whenNonManager + ". non tx-manager is alive.");
                     break;
                 }
+                if (!sleepBackoff(attempt)) {
+                    log.error(whenNonManager + ". interrupted.");
+                    break;
+                }
             }
         }
     }
@@ -110,14 +253,50 @@ public class TxMangerReporter {
      * @return MessageDto
      */
     public static MessageDto requestUntilNonManager(RpcClient rpcClient, MessageDto messageDto, String whenNonManager) throws RpcException {
-        while (true) {
+        for (int attempt = 0; ; attempt++) {
             try {
                 return rpcClient.request(rpcClient.loadRemoteKey(), messageDto);
             } catch (RpcException e) {
                 if (e.getCode() == RpcException.NON_TX_MANAGER) {
                     throw new RpcException(whenNonManager + ". non tx-manager is alive.");
                 }
+                if (!sleepBackoff(attempt)) {
+                    throw new RpcException(whenNonManager + ". interrupted.");
+                }
             }
         }
     }
+
+    private static class PendingReport implements Delayed {
+
+        private final TxExceptionParams params;
+
+        private final int attempt;
+
+        private final long dueNanos;
+
+        private PendingReport(TxExceptionParams params, int attempt) {
+            this(params, attempt, 0);
+        }
+
+        private PendingReport(TxExceptionParams params, int attempt, long delayMillis) {
+            this.params = params;
+            this.attempt = attempt;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        private PendingReport next() {
+            return new PendingReport(params, attempt + 1, backoffMillis(attempt, MAX_BACKOFF_MILLIS));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(dueNanos, ((PendingReport) o).dueNanos);
+        }
+    }
 }
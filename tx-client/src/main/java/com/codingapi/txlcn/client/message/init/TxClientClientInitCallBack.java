@@ -15,6 +15,8 @@
  */
 package com.codingapi.txlcn.client.message.init;
 
+import com.codingapi.txlcn.client.aspectlog.AspectLogger;
+import com.codingapi.txlcn.client.aspectlog.DeferredAspectLogger;
 import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.message.helper.MessageCreator;
 import com.codingapi.txlcn.spi.message.ClientInitCallBack;
@@ -45,6 +47,8 @@ public class TxClientClientInitCallBack implements ClientInitCallBack {
 
     private final TxClientConfig txClientConfig;
 
+    private final AspectLogger aspectLogger;
+
     private ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
 
     @Value("${spring.application.name}")
@@ -54,9 +58,10 @@ public class TxClientClientInitCallBack implements ClientInitCallBack {
     private Integer port;
 
     @Autowired
-    public TxClientClientInitCallBack(RpcClient rpcClient, TxClientConfig txClientConfig) {
+    public TxClientClientInitCallBack(RpcClient rpcClient, TxClientConfig txClientConfig, AspectLogger aspectLogger) {
         this.rpcClient = rpcClient;
         this.txClientConfig = txClientConfig;
+        this.aspectLogger = aspectLogger;
     }
 
     @Override
@@ -79,4 +84,13 @@ public class TxClientClientInitCallBack implements ClientInitCallBack {
             }
         });
     }
+
+    @Override
+    public void disconnected(String remoteKey) {
+        log.warn("TM[{}] disconnected.", remoteKey);
+        // 与TM断开后可能收不到事务通知，延迟的切面日志立即持久化
+        if (aspectLogger instanceof DeferredAspectLogger) {
+            singleThreadExecutor.submit(((DeferredAspectLogger) aspectLogger)::flush);
+        }
+    }
 }
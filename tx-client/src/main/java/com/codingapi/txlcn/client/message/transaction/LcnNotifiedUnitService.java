@@ -15,14 +15,25 @@
  */
 package com.codingapi.txlcn.client.message.transaction;
 
+import com.codingapi.txlcn.client.config.TxClientConfig;
+import com.codingapi.txlcn.client.message.helper.TransactionCmd;
 import com.codingapi.txlcn.client.support.DefaultNotifiedUnitService;
 import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.template.TransactionCleanTemplate;
+import com.codingapi.txlcn.commons.exception.TxClientException;
 import com.codingapi.txlcn.logger.TxLogger;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Description:
  * Date: 2018/12/11
@@ -31,11 +42,41 @@ import org.springframework.stereotype.Service;
  */
 @Service("rpc_lcn_notify-unit")
 @Slf4j
-public class LcnNotifiedUnitService extends DefaultNotifiedUnitService {
+public class LcnNotifiedUnitService extends DefaultNotifiedUnitService implements DisposableBean {
+
+    /**
+     * 提交、关闭被持有的连接，各事务单元并行，完成后回复TM
+     */
+    private final ExecutorService commitExecutor;
 
     @Autowired
     public LcnNotifiedUnitService(TransactionCleanTemplate transactionCleanTemplate,
-                                  TransactionAttachmentCache transactionAttachmentCache, TxLogger txLogger) {
+                                  TransactionAttachmentCache transactionAttachmentCache, TxLogger txLogger,
+                                  TxClientConfig clientConfig) {
         super(transactionCleanTemplate, txLogger, transactionAttachmentCache);
+        int threads = clientConfig.getLcnCommitThreads() > 0 ?
+                clientConfig.getLcnCommitThreads() : Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.commitExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "txlcn-lcn-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Serializable> executeAsync(TransactionCmd transactionCmd) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(transactionCmd);
+            } catch (TxClientException e) {
+                throw new CompletionException(e);
+            }
+        }, commitExecutor);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        commitExecutor.shutdown();
+        commitExecutor.awaitTermination(10, TimeUnit.SECONDS);
     }
 }
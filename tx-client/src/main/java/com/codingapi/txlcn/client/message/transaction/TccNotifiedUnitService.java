@@ -15,10 +15,14 @@
  */
 package com.codingapi.txlcn.client.message.transaction;
 
+import com.codingapi.txlcn.client.bean.TCCTransactionInfo;
+import com.codingapi.txlcn.client.core.tcc.TccConfirmExecutor;
+import com.codingapi.txlcn.client.core.tcc.TccTransactionInfoCache;
 import com.codingapi.txlcn.client.support.DefaultNotifiedUnitService;
 import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.template.TransactionCleanTemplate;
 import com.codingapi.txlcn.logger.TxLogger;
+import com.codingapi.txlcn.spi.message.params.NotifyUnitParams;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -33,9 +37,34 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class TccNotifiedUnitService extends DefaultNotifiedUnitService {
 
+    private final TccTransactionInfoCache tccTransactionInfoCache;
+
+    private final TccConfirmExecutor tccConfirmExecutor;
+
     @Autowired
     public TccNotifiedUnitService(TransactionCleanTemplate transactionCleanTemplate,
-                                  TransactionAttachmentCache transactionAttachmentCache, TxLogger txLogger) {
+                                  TransactionAttachmentCache transactionAttachmentCache, TxLogger txLogger,
+                                  TccTransactionInfoCache tccTransactionInfoCache,
+                                  TccConfirmExecutor tccConfirmExecutor) {
         super(transactionCleanTemplate, txLogger, transactionAttachmentCache);
+        this.tccTransactionInfoCache = tccTransactionInfoCache;
+        this.tccConfirmExecutor = tccConfirmExecutor;
+    }
+
+    /**
+     * 事务组状态已确定，本地同组其余 TCC 单元的 confirm/cancel 一并并行执行，
+     * 它们的通知到达时只需等待结果
+     */
+    @Override
+    protected void beforeClean(NotifyUnitParams notifyUnitParams) {
+        for (String unitId : tccTransactionInfoCache.unitsOf(notifyUnitParams.getGroupId())) {
+            if (unitId.equals(notifyUnitParams.getUnitId())) {
+                continue;
+            }
+            TCCTransactionInfo tccInfo = tccTransactionInfoCache.get(notifyUnitParams.getGroupId(), unitId);
+            if (tccInfo != null) {
+                tccConfirmExecutor.submit(notifyUnitParams.getGroupId(), unitId, notifyUnitParams.getState(), tccInfo);
+            }
+        }
     }
 }
@@ -16,79 +16,79 @@
 package com.codingapi.txlcn.client.support;
 
 import com.codingapi.txlcn.client.bean.DTXInfo;
-import com.codingapi.txlcn.commons.util.Transactions;
+import com.codingapi.txlcn.client.bean.DTXMethodDescriptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.util.ConcurrentReferenceHashMap;
 
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Description:
+ * Description: 按目标类缓存分布式事务方法描述。描述只在首次调用时解析（反射、签名、unitId），
+ * 之后每次调用仅创建携带参数的 {@link DTXInfo}，不修改共享状态。
  * Date: 19-1-11 下午1:26
  *
  * @author ujued
  */
 public class DTXInfoPool {
+
     private static final DTXInfoPool dtxInfoPool = new DTXInfoPool();
-    private Map<String, DTXInfo> dtxInfoCache = new ConcurrentReferenceHashMap<>();
+
+    /**
+     * 目标类 -> (切点方法 -> 方法描述)。ClassValue 随类卸载，避免持有用户类
+     */
+    private final ClassValue<Map<Method, DTXMethodDescriptor>> descriptors = new ClassValue<Map<Method, DTXMethodDescriptor>>() {
+        @Override
+        protected Map<Method, DTXMethodDescriptor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
 
     private DTXInfoPool() {
     }
 
-    private DTXInfo get0(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        String signature = proceedingJoinPoint.getSignature().toString();
-        String unitId = Transactions.unitId(signature);
-        DTXInfo dtxInfo = dtxInfoCache.get(unitId);
-        if (Objects.isNull(dtxInfo)) {
-            MethodSignature methodSignature = (MethodSignature) proceedingJoinPoint.getSignature();
-            Method method = methodSignature.getMethod();
-            Class<?> targetClass = proceedingJoinPoint.getTarget().getClass();
+    private DTXMethodDescriptor descriptor0(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        Method method = ((MethodSignature) proceedingJoinPoint.getSignature()).getMethod();
+        Class<?> targetClass = proceedingJoinPoint.getTarget().getClass();
+        Map<Method, DTXMethodDescriptor> classDescriptors = descriptors.get(targetClass);
+        DTXMethodDescriptor descriptor = classDescriptors.get(method);
+        if (Objects.isNull(descriptor)) {
             Method thisMethod = targetClass.getMethod(method.getName(), method.getParameterTypes());
-            dtxInfo = new DTXInfo(thisMethod, proceedingJoinPoint.getArgs(), targetClass);
-            dtxInfoCache.put(unitId, dtxInfo);
+            descriptor = new DTXMethodDescriptor(thisMethod, targetClass);
+            classDescriptors.putIfAbsent(method, descriptor);
         }
-        dtxInfo.reanalyseMethodArgs(proceedingJoinPoint.getArgs());
-        return dtxInfo;
+        return descriptor;
     }
 
-    private DTXInfo get0(MethodInvocation methodInvocation) {
-        String signature = methodInvocation.getMethod().toString();
-        String unitId = Transactions.unitId(signature);
-        DTXInfo dtxInfo = dtxInfoCache.get(unitId);
-        if (Objects.isNull(dtxInfo)) {
-            dtxInfo = new DTXInfo(methodInvocation.getMethod(),
-                    methodInvocation.getArguments(), methodInvocation.getThis().getClass());
-            dtxInfoCache.put(unitId, dtxInfo);
+    private DTXMethodDescriptor descriptor0(Method method, Class<?> targetClass) {
+        Map<Method, DTXMethodDescriptor> classDescriptors = descriptors.get(targetClass);
+        DTXMethodDescriptor descriptor = classDescriptors.get(method);
+        if (Objects.isNull(descriptor)) {
+            descriptor = classDescriptors.computeIfAbsent(method, m -> new DTXMethodDescriptor(m, targetClass));
         }
-        dtxInfo.reanalyseMethodArgs(methodInvocation.getArguments());
-        return dtxInfo;
+        return descriptor;
     }
 
-    private DTXInfo get0(Method method, Object[] args, Class<?> targetClass) {
-        String signature = method.getName();
-        String unitId = Transactions.unitId(signature);
-        DTXInfo dtxInfo = dtxInfoCache.get(unitId);
-        if (Objects.isNull(dtxInfo)) {
-            dtxInfo = new DTXInfo(method, args, targetClass);
-            dtxInfoCache.put(unitId, dtxInfo);
-        }
-        dtxInfo.reanalyseMethodArgs(args);
-        return dtxInfo;
+    public static DTXMethodDescriptor descriptor(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        return dtxInfoPool.descriptor0(proceedingJoinPoint);
+    }
+
+    public static DTXMethodDescriptor descriptor(MethodInvocation methodInvocation) {
+        return dtxInfoPool.descriptor0(methodInvocation.getMethod(), methodInvocation.getThis().getClass());
     }
 
     public static DTXInfo get(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        return dtxInfoPool.get0(proceedingJoinPoint);
+        return descriptor(proceedingJoinPoint).newInfo(proceedingJoinPoint.getArgs());
     }
 
     public static DTXInfo get(MethodInvocation methodInvocation) {
-        return dtxInfoPool.get0(methodInvocation);
+        return descriptor(methodInvocation).newInfo(methodInvocation.getArguments());
     }
 
     public static DTXInfo get(Method method, Object[] args, Class<?> targetClass) {
-        return dtxInfoPool.get0(method, args, targetClass);
+        return dtxInfoPool.descriptor0(method, targetClass).newInfo(args);
     }
 }
@@ -27,6 +27,7 @@ import com.codingapi.txlcn.logger.TxLogger;
 import com.codingapi.txlcn.spi.message.params.NotifyUnitParams;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Description: 默认RPC命令业务
@@ -55,14 +56,13 @@ public class DefaultNotifiedUnitService implements RpcExecuteService {
         try {
             NotifyUnitParams notifyUnitParams = transactionCmd.getMsg().loadBean(NotifyUnitParams.class);
             // 保证业务线程执行完毕后执行事务清理操作
-            if (transactionAttachmentCache.hasContext(transactionCmd.getGroupId())) {
-                DTXGroupContext groupContext = transactionAttachmentCache.context(transactionCmd.getGroupId());
-                synchronized (groupContext.getLock()) {
-                    txLogger.trace(transactionCmd.getGroupId(), notifyUnitParams.getUnitId(), Transactions.TAG_TRANSACTION,
-                            "clean transaction cmd waiting for business code finish.");
-                    groupContext.getLock().wait();
-                }
+            DTXGroupContext groupContext = transactionAttachmentCache.context(transactionCmd.getGroupId());
+            if (Objects.nonNull(groupContext) && !groupContext.isBusinessFinished()) {
+                txLogger.trace(transactionCmd.getGroupId(), notifyUnitParams.getUnitId(), Transactions.TAG_TRANSACTION,
+                        "clean transaction cmd waiting for business code finish.");
+                groupContext.awaitBusinessFinished();
             }
+            beforeClean(notifyUnitParams);
             // 事务清理操作
             transactionCleanTemplate.clean(
                     notifyUnitParams.getGroupId(),
@@ -74,4 +74,12 @@ public class DefaultNotifiedUnitService implements RpcExecuteService {
             throw new TxClientException(e);
         }
     }
+
+    /**
+     * 业务执行完毕、事务清理之前
+     *
+     * @param notifyUnitParams notifyUnitParams
+     */
+    protected void beforeClean(NotifyUnitParams notifyUnitParams) {
+    }
 }
@@ -19,12 +19,20 @@ import com.codingapi.txlcn.client.support.resouce.TransactionResourceExecutor;
 import com.codingapi.txlcn.client.message.helper.RpcExecuteService;
 import com.codingapi.txlcn.spi.message.LCNCmdType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * Description: BeanName 获取工具类
+ * 启动完成后按 事务类型 × (事务状态 | RPC命令) 解析出调度表，运行期查表即可，
+ * 表中缺失时才回退到按 BeanName 获取。
  * Company: CodingApi
  * Date: 2018/12/10
  *
@@ -32,7 +40,7 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @Slf4j
-public class TXLCNTransactionBeanHelper {
+public class TXLCNTransactionBeanHelper implements SmartInitializingSingleton {
 
 
     /**
@@ -71,14 +79,126 @@ public class TXLCNTransactionBeanHelper {
      */
     private static final String TRANSACTION_CLEAN_SERVICE_NAME_FORMAT = "%sTransactionCleanService";
 
+    private static final String DEFAULT_TYPE = "default";
+
+    private static final String CONTROL_PREFIX = "control_";
+
+    private static final String RPC_PREFIX = "rpc_";
+
+    private static final String TRANSACTION_PREFIX = "transaction_";
+
+    private static final String STATE_RESOLVER_PREFIX = "transaction_state_resolver_";
+
+    private static final String CLEAN_SERVICE_SUFFIX = "TransactionCleanService";
 
     private final ApplicationContext spring;
 
+    /**
+     * 事务类型 -> 调度项，启动后只读
+     */
+    private volatile Map<String, TypeDispatch> dispatches = Collections.emptyMap();
+
+    /**
+     * 与事务类型无关的 RPC 服务，按 LCNCmdType 下标
+     */
+    private volatile RpcExecuteService[] typelessRpcServices = new RpcExecuteService[LCNCmdType.values().length];
+
+    private volatile TXLCNTransactionSeparator defaultSeparator;
+
     @Autowired
     public TXLCNTransactionBeanHelper(ApplicationContext spring) {
         this.spring = spring;
     }
 
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, TypeDispatch> dispatches = new HashMap<>();
+        RpcExecuteService[] typelessRpcServices = new RpcExecuteService[LCNCmdType.values().length];
+
+        spring.getBeansOfType(TXLCNTransactionControl.class).forEach((name, control) -> {
+            int split = name.lastIndexOf('_');
+            if (!name.startsWith(CONTROL_PREFIX) || split < CONTROL_PREFIX.length()) {
+                return;
+            }
+            TXLCNTransactionState state = transactionState(name.substring(split + 1));
+            if (Objects.nonNull(state)) {
+                dispatch(dispatches, name.substring(CONTROL_PREFIX.length(), split)).controls[state.ordinal()] = control;
+            }
+        });
+
+        spring.getBeansOfType(RpcExecuteService.class).forEach((name, service) -> {
+            if (!name.startsWith(RPC_PREFIX)) {
+                return;
+            }
+            int split = name.lastIndexOf('_');
+            LCNCmdType cmdType = cmdType(name.substring(split + 1));
+            if (Objects.isNull(cmdType)) {
+                return;
+            }
+            if (split < RPC_PREFIX.length()) {
+                typelessRpcServices[cmdType.ordinal()] = service;
+            } else {
+                dispatch(dispatches, name.substring(RPC_PREFIX.length(), split)).rpcServices[cmdType.ordinal()] = service;
+            }
+        });
+
+        spring.getBeansOfType(TransactionResourceExecutor.class).forEach((name, executor) -> {
+            if (name.startsWith(TRANSACTION_PREFIX)) {
+                dispatch(dispatches, name.substring(TRANSACTION_PREFIX.length())).resourceExecutor = executor;
+            }
+        });
+
+        spring.getBeansOfType(TXLCNTransactionSeparator.class).forEach((name, separator) -> {
+            if (name.startsWith(STATE_RESOLVER_PREFIX)) {
+                dispatch(dispatches, name.substring(STATE_RESOLVER_PREFIX.length())).separator = separator;
+            }
+        });
+
+        spring.getBeansOfType(TransactionCleanService.class).forEach((name, cleanService) -> {
+            if (name.endsWith(CLEAN_SERVICE_SUFFIX) && name.length() > CLEAN_SERVICE_SUFFIX.length()) {
+                dispatch(dispatches, name.substring(0, name.length() - CLEAN_SERVICE_SUFFIX.length())).cleanService = cleanService;
+            }
+        });
+
+        TypeDispatch defaultDispatch = dispatches.get(DEFAULT_TYPE);
+        this.defaultSeparator = Objects.isNull(defaultDispatch) ? null : defaultDispatch.separator;
+        dispatches.forEach((type, dispatch) -> {
+            if (DEFAULT_TYPE.equals(type) || Objects.isNull(dispatch.resourceExecutor)) {
+                return;
+            }
+            if (Objects.isNull(dispatch.cleanService)) {
+                log.warn("transaction type [{}] has no clean service.", type);
+            }
+            if (Objects.isNull(dispatch.controls[TXLCNTransactionState.DEFAULT.ordinal()])) {
+                log.warn("transaction type [{}] has no default transaction control.", type);
+            }
+        });
+        this.typelessRpcServices = typelessRpcServices;
+        this.dispatches = Collections.unmodifiableMap(dispatches);
+        log.debug("resolved transaction types: {}", dispatches.keySet());
+    }
+
+    private static TypeDispatch dispatch(Map<String, TypeDispatch> dispatches, String transactionType) {
+        return dispatches.computeIfAbsent(transactionType, k -> new TypeDispatch());
+    }
+
+    private static TXLCNTransactionState transactionState(String code) {
+        for (TXLCNTransactionState state : TXLCNTransactionState.values()) {
+            if (state.getCode().equals(code)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    private static LCNCmdType cmdType(String code) {
+        for (LCNCmdType cmdType : LCNCmdType.values()) {
+            if (cmdType.getCode().equals(code)) {
+                return cmdType;
+            }
+        }
+        return null;
+    }
 
     private String getControlBeanName(String transactionType, TXLCNTransactionState lcnTransactionState) {
         String name = String.format(CONTROL_BEAN_NAME_FORMAT, transactionType, lcnTransactionState.getCode());
@@ -100,6 +220,10 @@ public class TXLCNTransactionBeanHelper {
 
 
     public TransactionResourceExecutor loadTransactionResourceExecuter(String beanName) {
+        TypeDispatch dispatch = dispatches.get(beanName);
+        if (Objects.nonNull(dispatch) && Objects.nonNull(dispatch.resourceExecutor)) {
+            return dispatch.resourceExecutor;
+        }
         String name = String.format(TRANSACTION_BEAN_NAME_FORMAT, beanName);
         log.debug("loadTransactionResourceExecutor name ->{}", name);
         return spring.getBean(name, TransactionResourceExecutor.class);
@@ -111,13 +235,36 @@ public class TXLCNTransactionBeanHelper {
     }
 
     public TXLCNTransactionControl loadLCNTransactionControl(String transactionType, TXLCNTransactionState lcnTransactionState) {
+        TypeDispatch dispatch = dispatches.get(transactionType);
+        if (Objects.nonNull(dispatch) && Objects.nonNull(dispatch.controls[lcnTransactionState.ordinal()])) {
+            return dispatch.controls[lcnTransactionState.ordinal()];
+        }
         return loadLCNTransactionControl(getControlBeanName(transactionType, lcnTransactionState));
     }
 
     public RpcExecuteService loadRpcExecuteService(String transactionType, LCNCmdType cmdType) {
+        RpcExecuteService rpcExecuteService = rpcExecuteService(transactionType, cmdType);
+        if (Objects.nonNull(rpcExecuteService)) {
+            return rpcExecuteService;
+        }
         return loadRpcExecuteService(getRpcBeanName(transactionType, cmdType));
     }
 
+    /**
+     * 仅从调度表获取 RPC 服务
+     *
+     * @param transactionType 事务类型，可为 null
+     * @param cmdType         命令类型
+     * @return 未注册时返回 null
+     */
+    public RpcExecuteService rpcExecuteService(String transactionType, LCNCmdType cmdType) {
+        if (Objects.isNull(transactionType)) {
+            return typelessRpcServices[cmdType.ordinal()];
+        }
+        TypeDispatch dispatch = dispatches.get(transactionType);
+        return Objects.isNull(dispatch) ? null : dispatch.rpcServices[cmdType.ordinal()];
+    }
+
     private RpcExecuteService loadRpcExecuteService(String beanName) {
         return spring.getBean(beanName, RpcExecuteService.class);
     }
@@ -129,16 +276,43 @@ public class TXLCNTransactionBeanHelper {
      * @return 事务状态决策器
      */
     public TXLCNTransactionSeparator loadLCNTransactionStateResolver(String transactionType) {
+        TypeDispatch dispatch = dispatches.get(transactionType);
+        if (Objects.nonNull(dispatch) && Objects.nonNull(dispatch.separator)) {
+            return dispatch.separator;
+        }
+        if (Objects.nonNull(defaultSeparator)) {
+            return defaultSeparator;
+        }
         try {
             String name = String.format(TRANSACTION_STATE_RESOLVER_BEAN_NAME_FORMAT, transactionType);
             return spring.getBean(name, TXLCNTransactionSeparator.class);
         } catch (Exception e) {
-            return spring.getBean(String.format(TRANSACTION_STATE_RESOLVER_BEAN_NAME_FORMAT, "default"), TXLCNTransactionSeparator.class);
+            return spring.getBean(String.format(TRANSACTION_STATE_RESOLVER_BEAN_NAME_FORMAT, DEFAULT_TYPE), TXLCNTransactionSeparator.class);
         }
     }
 
 
     public TransactionCleanService loadTransactionCleanService(String transactionType) {
+        TypeDispatch dispatch = dispatches.get(transactionType);
+        if (Objects.nonNull(dispatch) && Objects.nonNull(dispatch.cleanService)) {
+            return dispatch.cleanService;
+        }
         return spring.getBean(String.format(TRANSACTION_CLEAN_SERVICE_NAME_FORMAT, transactionType), TransactionCleanService.class);
     }
+
+    /**
+     * 某一事务类型的调度项，状态与命令按枚举下标索引
+     */
+    private static class TypeDispatch {
+
+        private final TXLCNTransactionControl[] controls = new TXLCNTransactionControl[TXLCNTransactionState.values().length];
+
+        private final RpcExecuteService[] rpcServices = new RpcExecuteService[LCNCmdType.values().length];
+
+        private TransactionResourceExecutor resourceExecutor;
+
+        private TXLCNTransactionSeparator separator;
+
+        private TransactionCleanService cleanService;
+    }
 }
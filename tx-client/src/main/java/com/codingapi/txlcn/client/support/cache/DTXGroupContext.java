@@ -1,18 +1,54 @@
 package com.codingapi.txlcn.client.support.cache;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Description:
+ * Description: 事务组上下文。以一次性完成的 Future 表示业务代码是否执行完毕，
+ * 通知、检测与业务线程之间不共用监视器，也不会丢失唤醒
  * Date: 19-1-16 下午9:23
  *
  * @author ujued
  */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
 public class DTXGroupContext {
-    private Object lock = new Object();
+
+    private final CompletableFuture<Void> businessFinished = new CompletableFuture<>();
+
+    /**
+     * 业务代码执行完毕，唤醒所有等待者
+     */
+    public void businessFinished() {
+        businessFinished.complete(null);
+    }
+
+    /**
+     * 业务代码是否执行完毕
+     *
+     * @return result
+     */
+    public boolean isBusinessFinished() {
+        return businessFinished.isDone();
+    }
+
+    /**
+     * 业务代码执行完毕时完成，用于注册回调
+     *
+     * @return future
+     */
+    public CompletableFuture<Void> whenBusinessFinished() {
+        return businessFinished;
+    }
+
+    /**
+     * 阻塞等待业务代码执行完毕
+     *
+     * @throws InterruptedException InterruptedException
+     */
+    public void awaitBusinessFinished() throws InterruptedException {
+        try {
+            businessFinished.get();
+        } catch (ExecutionException ignored) {
+            // 仅以 complete(null) 完成
+        }
+    }
 }
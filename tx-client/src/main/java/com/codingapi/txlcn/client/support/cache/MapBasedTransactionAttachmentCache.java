@@ -24,6 +24,8 @@ import java.util.function.Supplier;
 
 /**
  * Description: 基于JDK线程安全的 {@code ConcurrentHashMap} 实现的 {@code TransactionAttachmentCache}
+ * 每个事务组持有独立的并发结构，附加对象以类型 {@code Class} 为键。
+ * 事务组的创建与回收都在外层 Map 的 compute 中完成，最后一个事务单元移除时整组回收。
  * Date: 2018/12/3
  *
  * @author ujued
@@ -33,11 +35,11 @@ import java.util.function.Supplier;
 @Slf4j
 public class MapBasedTransactionAttachmentCache implements TransactionAttachmentCache {
 
-    public class GroupCache {
-        private Map<String, Object> cache = new HashMap<>();
-        private Set<String> units = new HashSet<>();
+    public static class GroupCache {
+        private final Map<Class<?>, Object> cache = new ConcurrentHashMap<>(4);
+        private final Set<String> units = ConcurrentHashMap.newKeySet(4);
 
-        public Map<String, Object> getCache() {
+        public Map<Class<?>, Object> getCache() {
             return cache;
         }
 
@@ -57,9 +59,23 @@ public class MapBasedTransactionAttachmentCache implements TransactionAttachment
     /**
      * 线程安全的Cache
      */
-    private Map<String, GroupCache> transactionInfoMap = new ConcurrentHashMap<>(64);
-    private Map<String, Object> context = new ConcurrentHashMap<>(64);
+    private final Map<String, GroupCache> transactionInfoMap = new ConcurrentHashMap<>(64);
+    private final Map<String, Object> context = new ConcurrentHashMap<>(64);
 
+    /**
+     * 取得事务组缓存并登记事务单元。单元登记后，该组在此单元移除前不会被回收
+     */
+    private GroupCache joinGroup(String groupId, String unitId) {
+        GroupCache groupCache = transactionInfoMap.get(groupId);
+        if (Objects.nonNull(groupCache) && groupCache.getUnits().contains(unitId)) {
+            return groupCache;
+        }
+        return transactionInfoMap.compute(groupId, (k, cache) -> {
+            GroupCache joined = Objects.isNull(cache) ? new GroupCache() : cache;
+            joined.getUnits().add(unitId);
+            return joined;
+        });
+    }
 
     @Override
     public <T> void attach(String groupId, String unitId, T attachment) {
@@ -67,28 +83,18 @@ public class MapBasedTransactionAttachmentCache implements TransactionAttachment
             log.warn("GroupId is null!");
             return;
         }
-        if (transactionInfoMap.containsKey(groupId)) {
-            GroupCache groupCache = transactionInfoMap.get(groupId);
-            groupCache.getCache().put(attachment.getClass().getName(), attachment);
-            groupCache.getUnits().add(unitId);
-            return;
-        }
-        GroupCache groupCache = new GroupCache();
-        groupCache.getUnits().add(unitId);
-        groupCache.getCache().put(attachment.getClass().getName(), attachment);
-        transactionInfoMap.put(groupId, groupCache);
+        joinGroup(groupId, unitId).getCache().put(attachment.getClass(), attachment);
     }
 
     @Override
     public void removeAttachments(String groupId, String unitId) {
-        GroupCache groupCache = transactionInfoMap.get(groupId);
-        if (Objects.isNull(groupCache)) {
+        if (Objects.isNull(groupId) || !transactionInfoMap.containsKey(groupId)) {
             return;
         }
-        groupCache.getUnits().remove(unitId);
-        if (groupCache.getUnits().size() == 0) {
-            transactionInfoMap.remove(groupId);
-        }
+        transactionInfoMap.computeIfPresent(groupId, (k, groupCache) -> {
+            groupCache.getUnits().remove(unitId);
+            return groupCache.getUnits().isEmpty() ? null : groupCache;
+        });
     }
 
     @Override
@@ -99,17 +105,14 @@ public class MapBasedTransactionAttachmentCache implements TransactionAttachment
             return Optional.empty();
         }
         GroupCache groupCache = transactionInfoMap.get(groupId);
-        return (Optional<T>) Optional.ofNullable(Objects.isNull(groupCache) ? null : groupCache.getCache().get(type.getName()));
+        return (Optional<T>) Optional.ofNullable(Objects.isNull(groupCache) ? null : groupCache.getCache().get(type));
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T attachment(String groupId, String unitId, Class<T> type, Supplier<T> def) {
-        Optional<T> optionalT = attachment(groupId, type);
-        if (optionalT.isPresent()) {
-            return optionalT.get();
-        }
-        attach(groupId, unitId, def.get());
-        return attachment(groupId, unitId, type, def);
+        // 同组同类型的默认值只创建一次，锁粒度为该组内的单个类型
+        return (T) joinGroup(groupId, unitId).getCache().computeIfAbsent(type, t -> def.get());
     }
 
     @Override
@@ -123,7 +126,11 @@ public class MapBasedTransactionAttachmentCache implements TransactionAttachment
 
     @Override
     public boolean hasAttachment(String groupId, Class<?> type) {
-        return hasGroup(groupId) && transactionInfoMap.get(groupId).getCache().containsKey(type.getName());
+        if (Objects.isNull(groupId)) {
+            return false;
+        }
+        GroupCache groupCache = transactionInfoMap.get(groupId);
+        return Objects.nonNull(groupCache) && groupCache.getCache().containsKey(type);
     }
 
     @Override
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.support.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Description: 事务组内尚未确认的 TM 请求（乐观模式下的创建事务组），以事务单元区分
+ * 作为事务组附加对象缓存，随事务单元清理而移除
+ */
+public class PendingGroupRequests {
+
+    private final Map<String, CompletableFuture<Void>> requests = new ConcurrentHashMap<>();
+
+    public void add(String unitId, CompletableFuture<Void> request) {
+        requests.put(unitId, request);
+    }
+
+    /**
+     * 取出并等待事务单元的请求结束
+     *
+     * @param unitId unitId
+     * @return 请求失败原因，成功或无请求时为 null
+     */
+    public Throwable await(String unitId) {
+        CompletableFuture<Void> request = requests.remove(unitId);
+        if (Objects.isNull(request)) {
+            return null;
+        }
+        try {
+            request.join();
+            return null;
+        } catch (CompletionException e) {
+            return Objects.isNull(e.getCause()) ? e : e.getCause();
+        }
+    }
+}
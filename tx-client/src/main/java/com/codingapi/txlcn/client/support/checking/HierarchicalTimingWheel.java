@@ -0,0 +1,321 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.support.checking;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Description: 分层时间轮。插入与取消均为 O(1)：调用线程只入队，
+ * 桶的增删与逐层降级只由驱动线程完成；到期任务按批交给执行器处理。
+ * <p>
+ * 第 i 层每格跨度为 tick * 2^(bits*i)。任务按绝对刻度与当前刻度的最高不同位选择层级，
+ * 当高层游标到达其格子时整格降级到低层，最终在第 0 层到期。
+ *
+ * @param <T> 任务类型
+ */
+@Slf4j
+public class HierarchicalTimingWheel<T> {
+
+    private static final int INIT = 0;
+
+    private static final int CANCELLED = 1;
+
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+
+    private final int bits;
+
+    private final int mask;
+
+    private final int levels;
+
+    private final Bucket<T>[][] wheels;
+
+    private final int batchSize;
+
+    private final Executor executor;
+
+    private final Consumer<List<T>> expiredHandler;
+
+    private final Queue<Entry<T>> pendingEntries = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Entry<T>> cancelledEntries = new ConcurrentLinkedQueue<>();
+
+    private final Thread driver;
+
+    private final long startNanos;
+
+    /**
+     * 驱动线程已处理到的刻度
+     */
+    private volatile long currentTick;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param tick           刻度时长
+     * @param unit           刻度单位
+     * @param bits           每层格数为 2^bits
+     * @param levels         层数
+     * @param batchSize      单批最大到期任务数
+     * @param executor       到期批处理执行器
+     * @param expiredHandler 到期批处理
+     * @param threadName     驱动线程名
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tick, TimeUnit unit, int bits, int levels, int batchSize,
+                                   Executor executor, Consumer<List<T>> expiredHandler, String threadName) {
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.batchSize = batchSize;
+        this.executor = executor;
+        this.expiredHandler = expiredHandler;
+        this.wheels = (Bucket<T>[][]) new Bucket[levels][1 << bits];
+        for (Bucket<T>[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket<>();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.driver = new Thread(this::drive, threadName);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param task  task
+     * @param delay delay
+     * @param unit  unit
+     * @return 可取消的句柄
+     */
+    public Timeout newTimeout(T task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(delay);
+        // 向上取整，保证不早于给定的延迟到期
+        Entry<T> entry = new Entry<>(task, (deadline + tickNanos - 1) / tickNanos, cancelledEntries);
+        pendingEntries.offer(entry);
+        return entry;
+    }
+
+    /**
+     * 停止驱动线程，未到期任务不再执行
+     */
+    public void stop() {
+        running = false;
+        driver.interrupt();
+    }
+
+    private void drive() {
+        List<T> expired = new ArrayList<>();
+        while (running) {
+            long tick = currentTick + 1;
+            long sleepNanos = startNanos + tick * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            try {
+                removeCancelled();
+                transferPending(tick, expired);
+                // 先由高层向低层降级，再处理第 0 层到期格
+                for (int level = levels - 1; level > 0; level--) {
+                    if ((tick & ((1L << (bits * level)) - 1)) == 0) {
+                        Bucket<T> bucket = wheels[level][(int) ((tick >>> (bits * level)) & mask)];
+                        for (Entry<T> entry = bucket.clear(); entry != null; ) {
+                            Entry<T> next = entry.next;
+                            entry.next = entry.prev = null;
+                            place(entry, tick, expired);
+                            entry = next;
+                        }
+                    }
+                }
+                Bucket<T> bucket = wheels[0][(int) (tick & mask)];
+                for (Entry<T> entry = bucket.clear(); entry != null; ) {
+                    Entry<T> next = entry.next;
+                    entry.next = entry.prev = null;
+                    entry.bucket = null;
+                    if (entry.expire()) {
+                        expired.add(entry.task);
+                    }
+                    entry = next;
+                }
+                currentTick = tick;
+                dispatch(expired);
+            } catch (Throwable e) {
+                log.error("timing wheel tick error.", e);
+            }
+        }
+    }
+
+    private void transferPending(long tick, List<T> expired) {
+        for (Entry<T> entry = pendingEntries.poll(); entry != null; entry = pendingEntries.poll()) {
+            if (entry.state.get() == INIT) {
+                place(entry, tick, expired);
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        for (Entry<T> entry = cancelledEntries.poll(); entry != null; entry = cancelledEntries.poll()) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * 按绝对刻度放入对应层的格子，已到期的直接收集
+     */
+    private void place(Entry<T> entry, long tick, List<T> expired) {
+        if (entry.state.get() == CANCELLED) {
+            entry.bucket = null;
+            return;
+        }
+        if (entry.deadlineTick <= tick) {
+            entry.bucket = null;
+            if (entry.expire()) {
+                expired.add(entry.task);
+            }
+            return;
+        }
+        long diff = entry.deadlineTick ^ tick;
+        int level = 0;
+        while (level < levels - 1 && (diff >>> (bits * (level + 1))) != 0) {
+            level++;
+        }
+        long deadlineTick = entry.deadlineTick;
+        if ((diff >>> (bits * levels)) != 0) {
+            // 超出最大跨度时放到最高层的最后一格，降级后再重新定位
+            deadlineTick = tick | ((1L << (bits * levels)) - 1);
+        }
+        wheels[level][(int) ((deadlineTick >>> (bits * level)) & mask)].add(entry);
+    }
+
+    private void dispatch(List<T> expired) {
+        if (expired.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<T> batch = new ArrayList<>(expired.subList(from, Math.min(expired.size(), from + batchSize)));
+            try {
+                executor.execute(() -> expiredHandler.accept(batch));
+            } catch (Throwable e) {
+                log.error("dispatch expired timeouts error.", e);
+            }
+        }
+        expired.clear();
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public interface Timeout {
+
+        /**
+         * 取消任务
+         *
+         * @return 是否在到期前取消成功
+         */
+        boolean cancel();
+    }
+
+    private static final class Entry<T> implements Timeout {
+
+        private final T task;
+
+        private final long deadlineTick;
+
+        private final Queue<Entry<T>> cancelledEntries;
+
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        private Entry<T> prev;
+
+        private Entry<T> next;
+
+        private Bucket<T> bucket;
+
+        private Entry(T task, long deadlineTick, Queue<Entry<T>> cancelledEntries) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            this.cancelledEntries = cancelledEntries;
+        }
+
+        private boolean expire() {
+            return state.compareAndSet(INIT, EXPIRED);
+        }
+
+        @Override
+        public boolean cancel() {
+            if (state.compareAndSet(INIT, CANCELLED)) {
+                cancelledEntries.offer(this);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 时间轮格子，双向链表。只由驱动线程访问
+     */
+    private static final class Bucket<T> {
+
+        private Entry<T> head;
+
+        private void add(Entry<T> entry) {
+            entry.bucket = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        private void remove(Entry<T> entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = entry.next = null;
+            entry.bucket = null;
+        }
+
+        private Entry<T> clear() {
+            Entry<T> entries = head;
+            head = null;
+            return entries;
+        }
+    }
+}
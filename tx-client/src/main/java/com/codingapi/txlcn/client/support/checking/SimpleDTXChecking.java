@@ -19,49 +19,56 @@ import com.codingapi.txlcn.client.aspectlog.AspectLogger;
 import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.message.helper.MessageCreator;
 import com.codingapi.txlcn.client.message.helper.TxMangerReporter;
+import com.codingapi.txlcn.client.support.template.TransactionCleanTemplate;
 import com.codingapi.txlcn.client.support.cache.DTXGroupContext;
 import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
-import com.codingapi.txlcn.client.support.template.TransactionCleanTemplate;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
 import com.codingapi.txlcn.commons.util.Transactions;
 import com.codingapi.txlcn.logger.TxLogger;
 import com.codingapi.txlcn.spi.message.RpcClient;
 import com.codingapi.txlcn.spi.message.dto.MessageDto;
 import com.codingapi.txlcn.spi.message.exception.RpcException;
+import com.codingapi.txlcn.spi.message.params.AskTransactionStateParams;
+import com.codingapi.txlcn.spi.message.params.AskTransactionStatesParams;
 import com.codingapi.txlcn.spi.message.params.TxExceptionParams;
+import com.codingapi.txlcn.spi.message.util.MessageUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.*;
 
 /**
- * Description: 基于JDK任务调度线程池实现的DTX检测
+ * Description: 基于分层时间轮实现的DTX检测。
+ * 每个事务单元一个时间轮句柄，开始与取消检测均为 O(1)，到期单元由少量工作线程分批处理
  * Date: 2018/12/19
  *
  * @author ujued
  * @see DTXChecking
+ * @see HierarchicalTimingWheel
  */
 @Component
 @Slf4j
-public class SimpleDTXChecking implements DTXChecking {
-
-    private static final Map<String, ScheduledFuture> delayTasks = new ConcurrentHashMap<>();
-    private static final ScheduledExecutorService scheduledExecutorService =
-            Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
-
-    static {
-        // 等待线程池任务完成
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            scheduledExecutorService.shutdown();
-            try {
-                scheduledExecutorService.awaitTermination(10, TimeUnit.MINUTES);
-            } catch (InterruptedException ignored) {
-            }
-        }));
-    }
+public class SimpleDTXChecking implements DTXChecking, DisposableBean {
+
+    /**
+     * 时间轮刻度
+     */
+    private static final long TICK_MILLIS = 100;
+
+    private static final int BATCH_SIZE = 64;
+
+    private final Map<String, HierarchicalTimingWheel.Timeout> delayTasks = new ConcurrentHashMap<>();
+
+    private final ExecutorService checkingExecutor;
+
+    private final HierarchicalTimingWheel<CheckingUnit> timingWheel;
 
     private TransactionCleanTemplate transactionCleanTemplate;
 
@@ -87,6 +94,14 @@ public class SimpleDTXChecking implements DTXChecking {
         this.txLogger = txLogger;
         this.txMangerReporter = txMangerReporter;
         this.transactionAttachmentCache = transactionAttachmentCache;
+        int workers = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        this.checkingExecutor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "txlcn-dtx-checking");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timingWheel = new HierarchicalTimingWheel<>(TICK_MILLIS, TimeUnit.MILLISECONDS, 9, 4, BATCH_SIZE,
+                checkingExecutor, this::onExpired, "txlcn-dtx-checking-wheel");
     }
 
     public void setTransactionCleanTemplate(TransactionCleanTemplate transactionCleanTemplate) {
@@ -96,45 +111,102 @@ public class SimpleDTXChecking implements DTXChecking {
     @Override
     public void startDelayCheckingAsync(String groupId, String unitId, String transactionType) {
         txLogger.trace(groupId, unitId, Transactions.TAG_TASK, "start delay checking task");
-        ScheduledFuture scheduledFuture = scheduledExecutorService.schedule(() -> {
-            try {
-                if (transactionAttachmentCache.hasContext(groupId)) {
-                    DTXGroupContext context = transactionAttachmentCache.context(groupId);
-                    synchronized (context.getLock()) {
-                        txLogger.trace(groupId, unitId, Transactions.TAG_TASK,
-                                "checking waiting for business code finish.");
-                        context.getLock().wait();
-                    }
-                }
-                MessageDto messageDto = TxMangerReporter.requestUntilNonManager(rpcClient,
-                        MessageCreator.askTransactionState(groupId, unitId), "ask transaction state error.");
-                int state = messageDto.loadBean(Short.class);
-                log.debug("support > ask transaction transactionState:{}", state);
-                txLogger.trace(groupId, unitId, Transactions.TAG_TASK, "ask transaction transactionState " + state);
-                if (state == -1) {
-                    log.error("delay clean transaction error.");
-                    onAskTransactionStateException(groupId, unitId, transactionType);
-                } else {
-                    transactionCleanTemplate.clean(groupId, unitId, transactionType, state);
-                    aspectLogger.clearLog(groupId, unitId);
-                }
-
-            } catch (RpcException e) {
-                onAskTransactionStateException(groupId, unitId, transactionType);
-            } catch (TransactionClearException | InterruptedException e) {
-                log.error("{} > [transaction transactionState message] error or [clean transaction] error.", transactionType);
-            }
-        }, clientConfig.getDtxTime(), TimeUnit.MILLISECONDS);
-        delayTasks.put(groupId + unitId, scheduledFuture);
+        CheckingUnit unit = new CheckingUnit(groupId, unitId, transactionType);
+        delayTasks.put(unit.key, timingWheel.newTimeout(unit, clientConfig.getDtxTime(), TimeUnit.MILLISECONDS));
     }
 
     @Override
     public void stopDelayChecking(String groupId, String unitId) {
-        ScheduledFuture scheduledFuture = delayTasks.get(groupId + unitId);
-        if (Objects.nonNull(scheduledFuture)) {
+        HierarchicalTimingWheel.Timeout timeout = delayTasks.remove(groupId + unitId);
+        if (Objects.nonNull(timeout)) {
             txLogger.trace(groupId, unitId, Transactions.TAG_TASK, "stop delay checking task");
             log.debug("cancel {}:{} checking.", groupId, unitId);
-            scheduledFuture.cancel(true);
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 一批到期的事务单元
+     *
+     * @param units units
+     */
+    private void onExpired(List<CheckingUnit> units) {
+        List<CheckingUnit> readyUnits = new ArrayList<>(units.size());
+        for (CheckingUnit unit : units) {
+            // 业务代码尚未结束，结束时再检测，不占用工作线程等待
+            DTXGroupContext context = transactionAttachmentCache.context(unit.groupId);
+            if (Objects.nonNull(context) && !context.isBusinessFinished()) {
+                txLogger.trace(unit.groupId, unit.unitId, Transactions.TAG_TASK,
+                        "checking waiting for business code finish.");
+                context.whenBusinessFinished()
+                        .thenRunAsync(() -> onExpired(Collections.singletonList(unit)), checkingExecutor);
+                continue;
+            }
+            if (Objects.nonNull(delayTasks.remove(unit.key))) {
+                readyUnits.add(unit);
+            }
+        }
+        if (readyUnits.size() == 1) {
+            CheckingUnit unit = readyUnits.get(0);
+            check(unit.groupId, unit.unitId, unit.transactionType);
+        } else if (readyUnits.size() > 1) {
+            checkBatch(readyUnits);
+        }
+    }
+
+    /**
+     * 一次往返询问一批事务单元的状态。批量询问只请求一次，不重试：
+     * 旧版 TM 不识别此命令时不会响应，超时、异常或响应无效时逐个询问
+     *
+     * @param units units
+     */
+    private void checkBatch(List<CheckingUnit> units) {
+        List<AskTransactionStateParams> params = new ArrayList<>(units.size());
+        units.forEach(unit -> params.add(new AskTransactionStateParams(unit.groupId, unit.unitId)));
+        List<Integer> states = null;
+        try {
+            MessageDto messageDto = rpcClient.request(rpcClient.loadRemoteKey(), MessageCreator.askTransactionStates(params));
+            if (MessageUtils.statusOk(messageDto)) {
+                states = messageDto.loadBean(AskTransactionStatesParams.class).getStates();
+            }
+        } catch (RpcException e) {
+            log.debug("batch ask transaction states error: {}", e.getMessage());
+        }
+        if (Objects.isNull(states) || states.size() != units.size()) {
+            log.debug("batch ask transaction states unavailable, ask one by one.");
+            units.forEach(unit -> check(unit.groupId, unit.unitId, unit.transactionType));
+            return;
+        }
+        for (int i = 0; i < units.size(); i++) {
+            CheckingUnit unit = units.get(i);
+            onTransactionState(unit.groupId, unit.unitId, unit.transactionType, states.get(i));
+        }
+    }
+
+    private void check(String groupId, String unitId, String transactionType) {
+        try {
+            MessageDto messageDto = TxMangerReporter.requestUntilNonManager(rpcClient,
+                    MessageCreator.askTransactionState(groupId, unitId), "ask transaction state error.");
+            int state = messageDto.loadBean(Short.class);
+            onTransactionState(groupId, unitId, transactionType, state);
+        } catch (RpcException e) {
+            onAskTransactionStateException(groupId, unitId, transactionType);
+        }
+    }
+
+    private void onTransactionState(String groupId, String unitId, String transactionType, int state) {
+        try {
+            log.debug("support > ask transaction transactionState:{}", state);
+            txLogger.trace(groupId, unitId, Transactions.TAG_TASK, "ask transaction transactionState " + state);
+            if (state == -1) {
+                log.error("delay clean transaction error.");
+                onAskTransactionStateException(groupId, unitId, transactionType);
+            } else {
+                transactionCleanTemplate.clean(groupId, unitId, transactionType, state);
+                aspectLogger.clearLog(groupId, unitId);
+            }
+        } catch (TransactionClearException e) {
+            log.error("{} > [transaction transactionState message] error or [clean transaction] error.", transactionType);
         }
     }
 
@@ -150,4 +222,30 @@ public class SimpleDTXChecking implements DTXChecking {
             log.error("{} > clean transaction error.", transactionType);
         }
     }
+
+    @Override
+    public void destroy() throws Exception {
+        timingWheel.stop();
+        // 等待进行中的检测完成
+        checkingExecutor.shutdown();
+        checkingExecutor.awaitTermination(10, TimeUnit.MINUTES);
+    }
+
+    private static class CheckingUnit {
+
+        private final String groupId;
+
+        private final String unitId;
+
+        private final String transactionType;
+
+        private final String key;
+
+        private CheckingUnit(String groupId, String unitId, String transactionType) {
+            this.groupId = groupId;
+            this.unitId = unitId;
+            this.transactionType = transactionType;
+            this.key = groupId + unitId;
+        }
+    }
 }
@@ -32,4 +32,16 @@ public interface TransactionResourceExecutor {
      */
     Connection proxyConnection(Supplier<Connection> connectionSupplier) throws Throwable;
 
+    /**
+     * 获取给定数据源的资源连接
+     *
+     * @param dataSource         连接所属数据源
+     * @param connectionSupplier Connection提供者
+     * @return Connection Connection
+     * @throws Throwable Throwable
+     */
+    default Connection proxyConnection(Object dataSource, Supplier<Connection> connectionSupplier) throws Throwable {
+        return proxyConnection(connectionSupplier);
+    }
+
 }
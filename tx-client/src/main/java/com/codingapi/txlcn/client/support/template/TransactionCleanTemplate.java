@@ -17,6 +17,7 @@ package com.codingapi.txlcn.client.support.template;
 
 import com.codingapi.txlcn.client.aspectlog.AspectLogger;
 import com.codingapi.txlcn.client.support.TXLCNTransactionBeanHelper;
+import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.client.support.checking.DTXChecking;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
 import com.codingapi.txlcn.commons.util.Transactions;
@@ -43,15 +44,19 @@ public class TransactionCleanTemplate {
 
     private final TxLogger txLogger;
 
+    private final TransactionAttachmentCache transactionAttachmentCache;
+
     @Autowired
     public TransactionCleanTemplate(TXLCNTransactionBeanHelper transactionBeanHelper,
                                     DTXChecking dtxChecking,
                                     AspectLogger aspectLogger,
-                                    TxLogger txLogger) {
+                                    TxLogger txLogger,
+                                    TransactionAttachmentCache transactionAttachmentCache) {
         this.transactionBeanHelper = transactionBeanHelper;
         this.dtxChecking = dtxChecking;
         this.aspectLogger = aspectLogger;
         this.txLogger = txLogger;
+        this.transactionAttachmentCache = transactionAttachmentCache;
     }
 
     /**
@@ -72,6 +77,9 @@ public class TransactionCleanTemplate {
 
         dtxChecking.stopDelayChecking(groupId, unitId);
 
+        // 事务单元结束，回收其事务组附加对象（所有类型的事务都在此回收）
+        transactionAttachmentCache.removeAttachments(groupId, unitId);
+
         aspectLogger.clearLog(groupId, unitId);
 
         txLogger.trace(groupId, unitId, Transactions.TAG_TRANSACTION, "clean transaction over");
@@ -95,5 +103,7 @@ public class TransactionCleanTemplate {
         );
 
         dtxChecking.stopDelayChecking(groupId, unitId);
+
+        transactionAttachmentCache.removeAttachments(groupId, unitId);
     }
 }
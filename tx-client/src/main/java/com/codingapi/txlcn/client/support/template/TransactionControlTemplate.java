@@ -17,9 +17,12 @@ package com.codingapi.txlcn.client.support.template;
 
 import com.codingapi.txlcn.client.aspectlog.AspectLogger;
 import com.codingapi.txlcn.client.bean.DTXLocal;
+import com.codingapi.txlcn.client.config.TxClientConfig;
 import com.codingapi.txlcn.client.message.helper.MessageCreator;
 import com.codingapi.txlcn.client.support.checking.DTXChecking;
 import com.codingapi.txlcn.client.support.checking.DTXExceptionHandler;
+import com.codingapi.txlcn.client.support.cache.PendingGroupRequests;
+import com.codingapi.txlcn.client.support.cache.TransactionAttachmentCache;
 import com.codingapi.txlcn.commons.bean.TransactionInfo;
 import com.codingapi.txlcn.commons.exception.BeforeBusinessException;
 import com.codingapi.txlcn.commons.exception.TransactionClearException;
@@ -34,21 +37,30 @@ import com.codingapi.txlcn.spi.message.params.NotifyGroupParams;
 import com.codingapi.txlcn.spi.message.util.MessageUtils;
 import com.codingapi.txlcn.spi.sleuth.TracerHelper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Description:
+ * 开启 optimisticGroup 时，发起方创建事务组的 TM 请求异步执行，与业务代码重叠，通知事务组前等待其结果。
+ * 参与方加入事务组仍在返回调用方前完成，创建请求可能晚于加入到达，此时由 TM 在加入时创建事务组。
  * Date: 2018/12/20
  *
  * @author ujued
  */
 @Component
 @Slf4j
-public class TransactionControlTemplate {
+public class TransactionControlTemplate implements DisposableBean {
 
     private final RpcClient rpcClient;
 
@@ -64,13 +76,23 @@ public class TransactionControlTemplate {
 
     private final TxLogger txLogger;
 
+    private final TransactionAttachmentCache transactionAttachmentCache;
+
+    private final boolean optimisticGroup;
+
+    private final boolean onePhaseGroup;
+
+    private final ExecutorService groupExecutor;
+
     @Autowired
     public TransactionControlTemplate(RpcClient rpcClient,
                                       TracerHelper tracerHelper,
                                       AspectLogger aspectLogger,
                                       DTXChecking dtxChecking,
                                       DTXExceptionHandler dtxExceptionHandler,
-                                      TransactionCleanTemplate transactionCleanTemplate, TxLogger txLogger) {
+                                      TransactionCleanTemplate transactionCleanTemplate, TxLogger txLogger,
+                                      TransactionAttachmentCache transactionAttachmentCache,
+                                      TxClientConfig clientConfig) {
         this.rpcClient = rpcClient;
         this.tracerHelper = tracerHelper;
         this.aspectLogger = aspectLogger;
@@ -78,6 +100,15 @@ public class TransactionControlTemplate {
         this.dtxExceptionHandler = dtxExceptionHandler;
         this.transactionCleanTemplate = transactionCleanTemplate;
         this.txLogger = txLogger;
+        this.transactionAttachmentCache = transactionAttachmentCache;
+        this.optimisticGroup = clientConfig.isOptimisticGroup();
+        this.onePhaseGroup = clientConfig.isOnePhaseGroup();
+        this.groupExecutor = optimisticGroup ? Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread thread = new Thread(r, "txlcn-group-pipeline");
+                    thread.setDaemon(true);
+                    return thread;
+                }) : null;
     }
 
     /**
@@ -104,6 +135,21 @@ public class TransactionControlTemplate {
             log.debug("transaction type[{}] > create group > groupId: {}, unitId: {}, remoteKey: {}",
                     transactionType, groupId, unitId, remoteKey);
 
+            // 一阶段模式：不预先创建事务组，由首个参与方加入时创建
+            if (onePhaseGroup) {
+                aspectLogger.trace(groupId, unitId, transactionInfo);
+                return;
+            }
+
+            // 乐观模式：异步创建事务组，通知事务组前等待结果
+            if (optimisticGroup) {
+                String managerKey = remoteKey;
+                pendingRequests(groupId, unitId).add(unitId, CompletableFuture.runAsync(
+                        () -> requestCreateGroup(groupId, unitId, transactionInfo, transactionType, managerKey),
+                        groupExecutor));
+                return;
+            }
+
             // TxManager创建事务组
             MessageDto messageDto = rpcClient.request(remoteKey, MessageCreator.createGroup(groupId));
             if (MessageUtils.statusOk(messageDto)) {
@@ -123,6 +169,21 @@ public class TransactionControlTemplate {
         txLogger.trace(groupId, unitId, Transactions.TAG_TRANSACTION, "create group over");
     }
 
+    private void requestCreateGroup(String groupId, String unitId, TransactionInfo transactionInfo,
+                                    String transactionType, String remoteKey) {
+        MessageDto messageDto;
+        try {
+            messageDto = rpcClient.request(remoteKey, MessageCreator.createGroup(groupId));
+        } catch (RpcException e) {
+            throw new CompletionException(e);
+        }
+        if (!MessageUtils.statusOk(messageDto)) {
+            throw new CompletionException(new Exception("TxManager业务异常"));
+        }
+        log.debug("{} > create transaction group: {}, txManager: {}.", transactionType, groupId, remoteKey);
+        aspectLogger.trace(groupId, unitId, transactionInfo);
+    }
+
     /**
      * Client加入事务组操作集合
      *
@@ -141,6 +202,7 @@ public class TransactionControlTemplate {
         joinGroupParams.setUnitId(unitId);
         joinGroupParams.setUnitType(transactionType);
         joinGroupParams.setTransactionState(DTXLocal.transactionState());
+        joinGroupParams.setCreateGroupIfAbsent(onePhaseGroup || optimisticGroup);
         // 日志
         log.debug("transaction type[{}] > join group > groupId: {}, unitId: {}, remoteKeys: {}",
                 transactionType, groupId, unitId, managerKey);
@@ -164,6 +226,23 @@ public class TransactionControlTemplate {
         txLogger.trace(groupId, unitId, Transactions.TAG_TRANSACTION, "join group over");
     }
 
+    /**
+     * 等待乐观模式下事务单元未完成的创建事务组请求
+     *
+     * @param groupId groupId
+     * @param unitId  unitId
+     * @return 请求失败原因，成功或无请求时为 null
+     */
+    public Throwable awaitPendingRequest(String groupId, String unitId) {
+        return transactionAttachmentCache.attachment(groupId, PendingGroupRequests.class)
+                .map(pending -> pending.await(unitId))
+                .orElse(null);
+    }
+
+    private PendingGroupRequests pendingRequests(String groupId, String unitId) {
+        return transactionAttachmentCache.attachment(groupId, unitId, PendingGroupRequests.class, PendingGroupRequests::new);
+    }
+
     /**
      * Client通知事务组操作集合
      *
@@ -174,6 +253,18 @@ public class TransactionControlTemplate {
      */
     public void notifyGroup(String groupId, String unitId, String transactionType, int state) {
         txLogger.trace(groupId, unitId, Transactions.TAG_TRANSACTION, "notify group " + state);
+        Throwable createError = awaitPendingRequest(groupId, unitId);
+        if (Objects.nonNull(createError)) {
+            // 事务组未建立，本地回滚。参与方加入时可能已创建事务组，尽力通知其回滚
+            log.error("{} > create group failed, rollback local transaction. groupId: {}", transactionType, groupId);
+            try {
+                transactionCleanTemplate.clean(groupId, unitId, transactionType, 0);
+            } catch (TransactionClearException e) {
+                log.error("clear exception", e);
+            }
+            rollbackGroupQuietly(groupId);
+            throw new IllegalStateException("DTX create group failed.", createError);
+        }
         NotifyGroupParams notifyGroupParams = new NotifyGroupParams();
         notifyGroupParams.setGroupId(groupId);
         notifyGroupParams.setState(state);
@@ -204,4 +295,26 @@ public class TransactionControlTemplate {
         }
         txLogger.trace(groupId, unitId, Transactions.TAG_TRANSACTION, "notify group exception " + state);
     }
+
+    private void rollbackGroupQuietly(String groupId) {
+        NotifyGroupParams notifyGroupParams = new NotifyGroupParams();
+        notifyGroupParams.setGroupId(groupId);
+        notifyGroupParams.setState(0);
+        try {
+            String managerKey = tracerHelper.getTxManagerKey();
+            if (Objects.nonNull(managerKey)) {
+                rpcClient.request(managerKey, MessageCreator.notifyGroup(notifyGroupParams));
+            }
+        } catch (RpcException e) {
+            log.warn("rollback group: {} after create failure error. participants will be resolved by checking.", groupId);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (Objects.nonNull(groupExecutor)) {
+            groupExecutor.shutdown();
+            groupExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
 }
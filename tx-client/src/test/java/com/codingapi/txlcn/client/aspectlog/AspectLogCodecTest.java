@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Description: 方法字典的持久化与崩溃后加载
+ */
+public class AspectLogCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AspectLogDbProperties properties;
+
+    private File dictionary;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = new AspectLogDbProperties(new StandardEnvironment(), new ServerProperties());
+        properties.setFilePath(new File(folder.getRoot(), "app").getPath());
+        dictionary = new File(properties.getFilePath() + "-methods.dict");
+    }
+
+    @Test
+    public void decodeWithReloadedDictionary() throws Exception {
+        byte[] bytes = new AspectLogCodec(properties).encode(transactionInfo("pay", "a"));
+
+        TransactionInfo decoded = new AspectLogCodec(properties).decode(bytes);
+
+        assertEquals(AspectLogCodecTest.class, decoded.getTargetClazz());
+        assertEquals("pay(String)", decoded.getMethodStr());
+        assertArrayEquals(new Object[]{"a"}, decoded.getArgumentValues());
+    }
+
+    @Test
+    public void tornLastLineIsTruncated() throws Exception {
+        byte[] bytes = new AspectLogCodec(properties).encode(transactionInfo("pay", "a"));
+        long length = dictionary.length();
+        try (FileOutputStream out = new FileOutputStream(dictionary, true)) {
+            out.write("2\tcom.codingapi.Missing\tre".getBytes(StandardCharsets.UTF_8));
+        }
+
+        AspectLogCodec codec = new AspectLogCodec(properties);
+
+        assertEquals(length, dictionary.length());
+        assertArrayEquals(new Object[]{"a"}, codec.decode(bytes).getArgumentValues());
+
+        // 截断后新登记的方法从完整行开始，重启后可解码
+        byte[] refund = codec.encode(transactionInfo("refund", "b"));
+        TransactionInfo decoded = new AspectLogCodec(properties).decode(refund);
+        assertEquals("refund(String)", decoded.getMethodStr());
+        assertArrayEquals(new Object[]{"b"}, decoded.getArgumentValues());
+    }
+
+    @Test
+    public void malformedLineIsTruncated() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(dictionary)) {
+            out.write("x\tbroken\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        AspectLogCodec codec = new AspectLogCodec(properties);
+        byte[] bytes = codec.encode(transactionInfo("pay", "a"));
+
+        assertArrayEquals(new Object[]{"a"}, new AspectLogCodec(properties).decode(bytes).getArgumentValues());
+    }
+
+    private static TransactionInfo transactionInfo(String method, String arg) {
+        return new TransactionInfo(AspectLogCodecTest.class, method, method + "(String)",
+                new Object[]{arg}, new Class[]{String.class});
+    }
+}
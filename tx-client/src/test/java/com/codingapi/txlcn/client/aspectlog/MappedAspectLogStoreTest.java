@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.aspectlog;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Description: 段文件的写入、压缩与重启回放
+ */
+public class MappedAspectLogStoreTest {
+
+    /**
+     * 单字符 groupId/unitId 时，60 字节数据的记录长 87 字节，墓碑长 23 字节
+     */
+    private static final int SEGMENT_SIZE = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedAspectLogStore store;
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void putAndRemoveSurviveRestart() throws IOException {
+        File dir = folder.newFolder();
+        store = open(dir);
+        store.put("g", "a", bytes(1), 1L);
+        store.put("g", "b", bytes(2), 1L);
+        store.remove("g", "a");
+
+        store = reopen(dir);
+
+        assertNull(store.get("g", "a"));
+        assertArrayEquals(bytes(2), store.get("g", "b"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void compactedTombstoneKeepsLaterPut() throws IOException {
+        File dir = folder.newFolder();
+        store = open(dir);
+        // 段0: k, f
+        store.put("g", "k", bytes(1), 1L);
+        store.put("g", "f", bytes(2), 1L);
+        // 段1: x, 删除k(指向段0), 删除x
+        store.put("g", "x", bytes(3), 1L);
+        store.remove("g", "k");
+        store.remove("g", "x");
+        // 段2: 再次写入k
+        store.put("g", "k", bytes(4), 1L);
+
+        // 段0存活一半不压缩；段1无存活记录，指向段0的墓碑移到段2中k之后
+        store.compact(0.4);
+        assertFalse(new File(dir, String.format("%020d.seg", 1)).exists());
+        assertArrayEquals(bytes(4), store.get("g", "k"));
+
+        store = reopen(dir);
+
+        assertArrayEquals(bytes(4), store.get("g", "k"));
+        assertArrayEquals(bytes(2), store.get("g", "f"));
+        assertNull(store.get("g", "x"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void compactedPutSurvivesRestart() throws IOException {
+        File dir = folder.newFolder();
+        store = open(dir);
+        store.put("g", "k", bytes(1), 1L);
+        store.put("g", "f", bytes(2), 1L);
+        store.put("g", "x", bytes(3), 1L);
+        store.remove("g", "f");
+
+        // 段0仅 k 存活，压缩后移到活动段
+        store.compact(0.6);
+        assertFalse(new File(dir, String.format("%020d.seg", 0)).exists());
+
+        store = reopen(dir);
+
+        assertArrayEquals(bytes(1), store.get("g", "k"));
+        assertArrayEquals(bytes(3), store.get("g", "x"));
+        assertNull(store.get("g", "f"));
+        assertEquals(2, store.size());
+    }
+
+    private MappedAspectLogStore reopen(File dir) throws IOException {
+        store.close();
+        store = null;
+        return open(dir);
+    }
+
+    private static MappedAspectLogStore open(File dir) throws IOException {
+        MappedAspectLogStore store = new MappedAspectLogStore(dir, SEGMENT_SIZE, false);
+        store.open();
+        return store;
+    }
+
+    private static byte[] bytes(int value) {
+        byte[] bytes = new byte[60];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.lcn.resource;
+
+import com.codingapi.txlcn.spi.message.dto.RpcResponseState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Description: 共享连接的事务单元按保存点回滚
+ */
+public class LcnConnectionProxyTest {
+
+    private Connection connection;
+
+    private Savepoint savepoint;
+
+    private LcnConnectionProxy proxy;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        savepoint = mock(Savepoint.class);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        proxy = new LcnConnectionProxy(connection);
+    }
+
+    @Test
+    public void nestedUnitRollsBackToItsSavepoint() throws SQLException {
+        proxy.join("outer");
+        proxy.join("inner");
+
+        assertEquals(RpcResponseState.success, proxy.notify("inner", 0));
+        verify(connection).rollback(savepoint);
+        assertFalse(proxy.isFinished());
+
+        assertEquals(RpcResponseState.success, proxy.notify("outer", 1));
+        verify(connection).commit();
+        verify(connection, never()).rollback();
+        assertTrue(proxy.isFinished());
+    }
+
+    @Test
+    public void firstUnitRollbackFailsLaterCommit() throws SQLException {
+        proxy.join("outer");
+        proxy.join("inner");
+
+        assertEquals(RpcResponseState.success, proxy.notify("outer", 0));
+        assertEquals(RpcResponseState.fail, proxy.notify("inner", 1));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void withoutSavepointRollbackFailsSiblingCommit() throws SQLException {
+        when(connection.setSavepoint()).thenThrow(new SQLFeatureNotSupportedException());
+        proxy.join("outer");
+        proxy.join("inner");
+
+        assertEquals(RpcResponseState.success, proxy.notify("inner", 0));
+        assertEquals(RpcResponseState.fail, proxy.notify("outer", 1));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void unitsJoinedAfterSavepointAreRevoked() throws SQLException {
+        proxy.join("a");
+        proxy.join("b");
+        proxy.join("c");
+
+        assertEquals(RpcResponseState.success, proxy.notify("b", 0));
+        assertEquals(RpcResponseState.success, proxy.notify("c", 0));
+        verify(connection, times(1)).rollback(savepoint);
+
+        assertEquals(RpcResponseState.success, proxy.notify("a", 1));
+        verify(connection).commit();
+    }
+
+    @Test
+    public void revokedUnitCommitFails() throws SQLException {
+        proxy.join("a");
+        proxy.join("b");
+        proxy.join("c");
+
+        proxy.notify("b", 0);
+
+        assertEquals(RpcResponseState.fail, proxy.notify("c", 1));
+        assertEquals(RpcResponseState.success, proxy.notify("a", 1));
+        verify(connection).commit();
+    }
+
+    @Test
+    public void plainSelectIsNotWrite() throws SQLException {
+        proxy.prepareStatement("select * from t where id = ?");
+        proxy.prepareStatement(" ( SELECT id FROM t ) union ( select id from s )");
+
+        assertFalse(proxy.isWritten());
+    }
+
+    @Test
+    public void lockingReadIsWrite() throws SQLException {
+        assertWritten("select * from t where id = ?\nFOR UPDATE");
+        assertWritten("select * from t where id = ?\tfor\n  update nowait");
+        assertWritten("select * from t where id = ? LOCK  IN\nSHARE MODE");
+        assertWritten("select * from t for share");
+        assertWritten("select * into t2 from t");
+        assertWritten("update t set a = 1");
+    }
+
+    @Test
+    public void allCommitted() throws SQLException {
+        proxy.join("a");
+        proxy.join("a");
+        proxy.join("b");
+
+        assertEquals(RpcResponseState.success, proxy.notify("a", 1));
+        assertEquals(RpcResponseState.success, proxy.notify("b", 1));
+        verify(connection, times(1)).setSavepoint();
+        verify(connection).commit();
+        verify(connection).close();
+    }
+
+    private void assertWritten(String sql) throws SQLException {
+        LcnConnectionProxy proxy = new LcnConnectionProxy(connection);
+        proxy.prepareStatement(sql);
+        assertTrue(sql, proxy.isWritten());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.tcc;
+
+import com.codingapi.txlcn.client.aspectlog.AspectLogger;
+import com.codingapi.txlcn.client.bean.TCCTransactionInfo;
+import com.codingapi.txlcn.client.config.TxClientConfig;
+import com.codingapi.txlcn.commons.bean.TransactionInfo;
+import com.codingapi.txlcn.commons.exception.BeforeBusinessException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Description: 未通知的 TCC 调用超出容量或超时后交由切面日志，并可从切面日志恢复
+ */
+public class TccTransactionInfoCacheTest {
+
+    private static final String UNIT = "unit";
+
+    private StaticApplicationContext applicationContext;
+
+    private MemoryAspectLogger aspectLogger;
+
+    private TccTransactionInfoCache cache;
+
+    @Before
+    public void setUp() {
+        applicationContext = new StaticApplicationContext();
+        applicationContext.registerSingleton("tccService", TccService.class);
+        applicationContext.refresh();
+        aspectLogger = new MemoryAspectLogger();
+    }
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.destroy();
+        }
+        applicationContext.close();
+    }
+
+    @Test
+    public void overflowHandsOffEldestAndRecovers() throws Throwable {
+        cache = newCache(2, 30 * 1000);
+        cache.put("g1", UNIT, transactionInfo("a1"));
+        cache.put("g2", UNIT, transactionInfo("a2"));
+        assertTrue(aspectLogger.logs.isEmpty());
+
+        cache.put("g3", UNIT, transactionInfo("a3"));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getOverflowEntryCount());
+        assertEquals(1, aspectLogger.logs.size());
+        assertNotNull(aspectLogger.getTransactionInfo("g1", UNIT));
+        assertTrue(cache.unitsOf("g1").isEmpty());
+        assertEquals(1, cache.unitsOf("g3").size());
+
+        TCCTransactionInfo recovered = cache.get("g1", UNIT);
+        assertNotNull(recovered);
+        assertArrayEquals(new Object[]{"a1"}, recovered.getMethodParameter());
+        recovered.getInvoker().invoke(1, recovered.getMethodParameter());
+        assertEquals("confirm:a1", applicationContext.getBean(TccService.class).calls.get(0));
+    }
+
+    @Test
+    public void expiryHandsOffAndRecovers() throws Exception {
+        // TTL 为 dtxTime + 10s，这里取 100ms
+        cache = newCache(16, 100 - 10000);
+        cache.put("g1", UNIT, transactionInfo("a1"));
+        cache.put("g2", UNIT, transactionInfo("a2"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getEntryCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(2, cache.getExpiredEntryCount());
+        assertEquals(2, aspectLogger.logs.size());
+        assertArrayEquals(new Object[]{"a2"}, cache.get("g2", UNIT).getMethodParameter());
+    }
+
+    @Test
+    public void notifiedEntryIsNotHandedOff() throws Exception {
+        cache = newCache(1, 30 * 1000);
+        cache.put("g1", UNIT, transactionInfo("a1"));
+        cache.remove("g1", UNIT);
+        cache.put("g2", UNIT, transactionInfo("a2"));
+
+        assertEquals(0, cache.getOverflowEntryCount());
+        assertTrue(aspectLogger.logs.isEmpty());
+        assertNull(cache.get("g1", UNIT));
+        assertArrayEquals(new Object[]{"a2"}, cache.get("g2", UNIT).getMethodParameter());
+    }
+
+    @Test
+    public void persistHandsOffOnce() throws Exception {
+        cache = newCache(16, 30 * 1000);
+        cache.put("g1", UNIT, transactionInfo("a1"));
+
+        cache.persist("g1", UNIT);
+        cache.persist("g1", UNIT);
+        cache.remove("g1", UNIT);
+
+        assertEquals(1, aspectLogger.traces);
+        assertArrayEquals(new Object[]{"a1"}, cache.get("g1", UNIT).getMethodParameter());
+    }
+
+    @Test
+    public void recoveredCopiesShareExecution() throws Exception {
+        cache = newCache(1, 30 * 1000);
+        cache.put("g1", UNIT, transactionInfo("a1"));
+        cache.put("g2", UNIT, transactionInfo("a2"));
+        assertNotSame(cache.get("g1", UNIT), cache.get("g1", UNIT));
+
+        CompletableFuture<Void> execution = new CompletableFuture<>();
+        assertSame(execution, cache.execution("g1", UNIT, () -> execution));
+        // 重复通知拿到同一执行，不再提交
+        assertSame(execution, cache.execution("g1", UNIT, () -> {
+            throw new AssertionError("submitted twice");
+        }));
+
+        cache.remove("g1", UNIT);
+        CompletableFuture<Void> next = new CompletableFuture<>();
+        assertSame(next, cache.execution("g1", UNIT, () -> next));
+    }
+
+    private TccTransactionInfoCache newCache(int size, long dtxTime) throws BeforeBusinessException {
+        TxClientConfig clientConfig = new TxClientConfig();
+        clientConfig.setTccInfoCacheSize(size);
+        clientConfig.setDtxTime(dtxTime);
+        TccTransactionInfoCache cache = new TccTransactionInfoCache(applicationContext, aspectLogger, clientConfig);
+
+        TCCTransactionInfo tccInfo = new TCCTransactionInfo();
+        tccInfo.setExecuteClass(TccService.class);
+        tccInfo.setConfirmMethod("confirm");
+        tccInfo.setCancelMethod("cancel");
+        tccInfo.setMethodTypeParameter(new Class[]{String.class});
+        cache.resolveIfAbsent(UNIT, tccInfo);
+        return cache;
+    }
+
+    private static TransactionInfo transactionInfo(String arg) {
+        return new TransactionInfo(TccService.class, "execute", "execute(String)",
+                new Object[]{arg}, new Class[]{String.class});
+    }
+
+    public static class TccService {
+
+        private final List<String> calls = new ArrayList<>();
+
+        public void confirm(String arg) {
+            calls.add("confirm:" + arg);
+        }
+
+        public void cancel(String arg) {
+            calls.add("cancel:" + arg);
+        }
+    }
+
+    private static class MemoryAspectLogger implements AspectLogger {
+
+        private final Map<String, TransactionInfo> logs = new ConcurrentHashMap<>();
+
+        private volatile int traces;
+
+        @Override
+        public void trace(String groupId, String unitId, TransactionInfo transactionInfo) {
+            traces++;
+            logs.put(groupId + ':' + unitId, transactionInfo);
+        }
+
+        @Override
+        public void clearLog(String groupId, String unitId) {
+            logs.remove(groupId + ':' + unitId);
+        }
+
+        @Override
+        public TransactionInfo getTransactionInfo(String groupId, String unitId) {
+            return logs.get(groupId + ':' + unitId);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.core.txc.resource;
+
+import com.codingapi.txlcn.jdbcproxy.p6spy.common.ConnectionInformation;
+import com.codingapi.txlcn.jdbcproxy.p6spy.common.PreparedStatementInformation;
+import com.codingapi.txlcn.jdbcproxy.p6spy.common.StatementInformation;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.update.Update;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Description: 已解析语句的参数绑定与锁定查询生成
+ */
+public class SqlParameterBinderTest {
+
+    private final ParsedStatementCache statementCache = new ParsedStatementCache(16);
+
+    @Test
+    public void bindPlaceholdersByIndex() throws Exception {
+        Update update = (Update) statementCache.parse("update t set a = ? where id = ? and b in (?, ?)");
+        SqlParameterBinder binder = SqlParameterBinder.of(prepared("x", 7, 8, 9));
+
+        assertEquals("id = 7 AND b IN (8, 9)", binder.bind(update.getWhere()));
+        // 共享的语句不被改写
+        assertTrue(update.getWhere().toString().contains("?"));
+    }
+
+    @Test
+    public void valueOfBoundParameter() throws Exception {
+        Insert insert = (Insert) statementCache.parse("insert into t (id, name) values (?, ?)");
+        SqlParameterBinder binder = SqlParameterBinder.of(prepared(5L, "n"));
+        ExpressionList values = (ExpressionList) insert.getItemsList();
+
+        assertEquals(5L, binder.valueOf(values.getExpressions().get(0)));
+        assertEquals("n", binder.valueOf(values.getExpressions().get(1)));
+    }
+
+    @Test
+    public void unboundPlaceholderIsNull() throws Exception {
+        Update update = (Update) statementCache.parse("update t set a = 1 where id = ?");
+        SqlParameterBinder binder = SqlParameterBinder.of(new StatementInformation(ConnectionInformation.fromConnection(null)));
+
+        assertEquals("id = NULL", binder.bind(update.getWhere()));
+        assertNull(binder.valueOf(((Update) statementCache.parse("update t set a = ? where id = 1"))
+                .getExpressions().get(0)));
+    }
+
+    @Test
+    public void lockSelectKeepsAllClauses() throws Exception {
+        Select select = (Select) statementCache.parse("select distinct * from t where a = ? group by id " +
+                "having count(*) > ? order by id limit 10 offset 20 for update");
+        PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+        SqlParameterBinder binder = SqlParameterBinder.of(prepared(1, 2));
+
+        String lockSql = binder.bind(plainSelect, primaryKeyItems()).toUpperCase();
+
+        assertTrue(lockSql, lockSql.startsWith("SELECT DISTINCT T.ID FROM T"));
+        assertTrue(lockSql, lockSql.contains("WHERE A = 1"));
+        assertTrue(lockSql, lockSql.contains("GROUP BY ID"));
+        assertTrue(lockSql, lockSql.contains("HAVING COUNT(*) > 2"));
+        assertTrue(lockSql, lockSql.contains("ORDER BY ID"));
+        assertTrue(lockSql, lockSql.contains("LIMIT 10"));
+        assertTrue(lockSql, lockSql.contains("OFFSET 20"));
+        assertTrue(lockSql, lockSql.endsWith("FOR UPDATE"));
+        assertFalse(lockSql, lockSql.contains("?"));
+
+        // 共享的语句保持原查询项
+        assertEquals("*", plainSelect.getSelectItems().get(0).toString());
+    }
+
+    @Test
+    public void lockSelectWithJoin() throws Exception {
+        Select select = (Select) statementCache.parse("select * from t, s where t.id = s.tid and s.id = ? for update");
+        SqlParameterBinder binder = SqlParameterBinder.of(prepared(3));
+
+        String lockSql = binder.bind((PlainSelect) select.getSelectBody(), primaryKeyItems()).toUpperCase();
+
+        assertTrue(lockSql, lockSql.startsWith("SELECT T.ID FROM T, S"));
+        assertTrue(lockSql, lockSql.contains("S.ID = 3"));
+        assertTrue(lockSql, lockSql.endsWith("FOR UPDATE"));
+    }
+
+    private static List<SelectItem> primaryKeyItems() {
+        return Collections.singletonList(new SelectExpressionItem(new Column(new Table("t"), "id")));
+    }
+
+    private static PreparedStatementInformation prepared(Object... values) {
+        PreparedStatementInformation information =
+                new PreparedStatementInformation(ConnectionInformation.fromConnection(null), "");
+        for (int i = 0; i < values.length; i++) {
+            information.setParameterValue(i + 1, values[i]);
+        }
+        return information;
+    }
+}
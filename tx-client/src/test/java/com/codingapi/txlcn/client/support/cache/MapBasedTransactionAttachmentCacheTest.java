@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.client.support.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Description: 事务单元并发加入与移除时事务组的回收
+ */
+public class MapBasedTransactionAttachmentCacheTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 2000;
+
+    private MapBasedTransactionAttachmentCache cache;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        cache = new MapBasedTransactionAttachmentCache();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void joinedUnitKeepsGroupWhileOthersEvict() throws Exception {
+        AtomicInteger lost = new AtomicInteger();
+        runConcurrently(worker -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                String unitId = worker + "-" + i;
+                cache.attach("g", unitId, new Marker(unitId));
+                // 本单元移除前，其他单元的移除不能回收该组
+                if (!cache.attachment("g", Marker.class).isPresent() || !cache.hasGroup("g")) {
+                    lost.incrementAndGet();
+                }
+                cache.removeAttachments("g", unitId);
+            }
+        });
+
+        assertEquals(0, lost.get());
+        assertFalse(cache.hasGroup("g"));
+    }
+
+    @Test
+    public void groupEvictedOnlyWithLastUnit() throws Exception {
+        Marker holder = new Marker("holder");
+        cache.attach("g", "holder", holder);
+
+        runConcurrently(worker -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                String unitId = worker + "-" + i;
+                cache.attachment("g", unitId, Counter.class, Counter::new);
+                cache.removeAttachments("g", unitId);
+            }
+        });
+
+        assertTrue(cache.hasGroup("g"));
+        assertSame(holder, cache.attachment("g", Marker.class).orElse(null));
+
+        cache.removeAttachments("g", "holder");
+        assertFalse(cache.hasGroup("g"));
+        assertFalse(cache.hasAttachment("g", Marker.class));
+    }
+
+    @Test
+    public void defaultAttachmentCreatedOncePerGroup() throws Exception {
+        cache.attach("g", "holder", new Marker("holder"));
+        AtomicInteger created = new AtomicInteger();
+
+        runConcurrently(worker -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                String unitId = worker + "-" + i;
+                cache.attachment("g", unitId, Counter.class, () -> {
+                    created.incrementAndGet();
+                    return new Counter();
+                }).value.incrementAndGet();
+                cache.removeAttachments("g", unitId);
+            }
+        });
+
+        assertEquals(1, created.get());
+        assertEquals(THREADS * ROUNDS, cache.attachment("g", Counter.class).map(c -> c.value.get()).orElse(0).intValue());
+    }
+
+    @Test
+    public void removeUnknownUnitKeepsGroup() {
+        cache.attach("g", "u1", new Marker("u1"));
+        cache.removeAttachments("g", "u2");
+        cache.removeAttachments("other", "u1");
+        cache.removeAttachments(null, "u1");
+
+        assertTrue(cache.hasAttachment("g", Marker.class));
+        cache.removeAttachments("g", "u1");
+        assertFalse(cache.hasGroup("g"));
+    }
+
+    private void runConcurrently(Worker worker) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            int id = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run("w" + id);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface Worker {
+        void run(String worker);
+    }
+
+    private static class Marker {
+        private final String unitId;
+
+        Marker(String unitId) {
+            this.unitId = unitId;
+        }
+
+        @Override
+        public String toString() {
+            return "Marker{" + unitId + '}';
+        }
+    }
+
+    private static class Counter {
+        private final AtomicInteger value = new AtomicInteger();
+    }
+}
@@ -102,7 +102,6 @@ public class TransactionInfo implements Serializable{
 
 
     public JSONObject toJsonObject(){
-        String json = JSON.toJSONString(this);
-        return JSON.parseObject(json);
+        return (JSONObject) JSON.toJSON(this);
     }
 }
@@ -72,6 +72,15 @@ public class PreparedStatementInformation extends StatementInformation implement
     parameterValues.put(position - 1, new Value(value));
   }
 
+  /**
+   * Returns the value of a parameter.
+   * @param index the index of the parameter (starts with 0)
+   * @return the value of the parameter, {@code null} if not set
+   */
+  public Value getParameterValue(final int index) {
+    return parameterValues.get(index);
+  }
+
   protected Map<Integer, Value> getParameterValues() {
     return parameterValues;
   }
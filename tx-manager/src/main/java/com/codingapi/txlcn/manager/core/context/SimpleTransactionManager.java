@@ -34,8 +34,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Description: 默认事务管理器
@@ -87,6 +89,12 @@ public class SimpleTransactionManager implements TransactionManager {
         log.debug("unit:{} joined group:{}", transactionUnit.unitId(), dtxTransaction.groupId());
         try {
             //手动回滚时设置状态为回滚状态 0
+            // 一阶段模式下发起方不预先创建事务组，由首个参与方创建。已有终态的事务组不再创建
+            if (transactionUnit.isCreateGroupIfAbsent()
+                    && !groupRelationship.existsGroup(dtxTransaction.groupId())
+                    && groupRelationship.transactionState(dtxTransaction.groupId()) == -1) {
+                groupRelationship.createGroup(dtxTransaction.groupId());
+            }
             if(transactionUnit.getTransactionState()==0){
                 groupRelationship.setTransactionState(dtxTransaction.groupId(),0);
             }
@@ -122,6 +130,19 @@ public class SimpleTransactionManager implements TransactionManager {
         return groupRelationship.transactionState(groupTransaction.groupId());
     }
 
+    @Override
+    public List<Integer> transactionStates(List<String> groupIds) {
+        Map<String, Integer> exceptionStates = exceptionService.transactionStates(groupIds);
+        List<Short> groupStates = groupRelationship.transactionStates(groupIds);
+        List<Integer> states = new ArrayList<>(groupIds.size());
+        for (int i = 0; i < groupIds.size(); i++) {
+            //存在数据时返回数据状态
+            Integer state = exceptionStates.get(groupIds.get(i));
+            states.add(state != null && state != -1 ? state : groupStates.get(i));
+        }
+        return states;
+    }
+
     private void notifyTransaction(String groupId, int transactionState) {
         groupRelationship.setTransactionState(groupId, transactionState);
         List<TransUnit> transUnits = groupRelationship.unitsOfGroup(groupId);
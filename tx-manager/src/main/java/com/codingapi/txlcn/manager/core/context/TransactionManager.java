@@ -18,6 +18,8 @@ package com.codingapi.txlcn.manager.core.context;
 import com.codingapi.txlcn.commons.exception.TransactionException;
 import com.codingapi.txlcn.manager.core.group.TransactionUnit;
 
+import java.util.List;
+
 /**
  * Description: 事务管理器
  * Date: 19-1-9 下午5:50
@@ -71,4 +73,12 @@ public interface TransactionManager {
      * @return transactionState
      */
     int transactionState(DTXTransaction groupTransaction);
+
+    /**
+     * 批量获取事务状态（补偿机制）。异常记录一次查询，事务组状态一次读取
+     *
+     * @param groupIds groupIds
+     * @return 与 groupIds 一一对应，出错为-1
+     */
+    List<Integer> transactionStates(List<String> groupIds);
 }
@@ -28,8 +28,21 @@ import java.util.List;
 
 public interface GroupRelationship {
 
+    /**
+     * 创建事务组，事务组已存在时不做处理
+     *
+     * @param groupId groupId
+     */
     void createGroup(String groupId);
 
+    /**
+     * 事务组是否存在
+     *
+     * @param groupId groupId
+     * @return result
+     */
+    boolean existsGroup(String groupId);
+
     void joinGroup(String groupId, TransUnit transUnit) throws JoinGroupException;
 
     List<TransUnit> unitsOfGroup(String groupId);
@@ -39,4 +52,12 @@ public interface GroupRelationship {
     void setTransactionState(String groupId, int state);
 
     Short transactionState(String groupId);
+
+    /**
+     * 批量获取事务组状态，一次读取
+     *
+     * @param groupIds groupIds
+     * @return 与 groupIds 一一对应，无状态为 -1
+     */
+    List<Short> transactionStates(List<String> groupIds);
 }
@@ -31,6 +31,8 @@ public class TransactionUnit {
 
     private int transactionState;
 
+    private boolean createGroupIfAbsent;
+
     public TransactionUnit(String unitId, String unitType, int transactionState, String messageContextId) {
         this.unitId = unitId;
         this.unitType = unitType;
@@ -38,6 +40,12 @@ public class TransactionUnit {
         this.transactionState = transactionState;
     }
 
+    public TransactionUnit(String unitId, String unitType, int transactionState, String messageContextId,
+                           boolean createGroupIfAbsent) {
+        this(unitId, unitType, transactionState, messageContextId);
+        this.createGroupIfAbsent = createGroupIfAbsent;
+    }
+
     public String unitId() {
         return unitId;
     }
@@ -53,4 +61,8 @@ public class TransactionUnit {
     public int getTransactionState() {
         return transactionState;
     }
+
+    public boolean isCreateGroupIfAbsent() {
+        return createGroupIfAbsent;
+    }
 }
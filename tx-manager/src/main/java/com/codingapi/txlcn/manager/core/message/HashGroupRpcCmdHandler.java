@@ -15,9 +15,13 @@
  */
 package com.codingapi.txlcn.manager.core.message;
 
+import com.codingapi.txlcn.logger.TxLogger;
 import com.codingapi.txlcn.manager.config.TxManagerConfig;
 import com.codingapi.txlcn.manager.support.ManagerRpcBeanHelper;
+import com.codingapi.txlcn.spi.message.LCNCmdType;
+import com.codingapi.txlcn.spi.message.RpcClient;
 import com.codingapi.txlcn.spi.message.dto.RpcCmd;
+import com.codingapi.txlcn.spi.message.exception.RpcException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -41,13 +45,18 @@ public class HashGroupRpcCmdHandler {
     private final List<ExecutorService> executors;
     private final int concurrentLevel;
     private final ManagerRpcBeanHelper beanHelper;
+    private final RpcClient rpcClient;
+    private final TxLogger txLogger;
 
     @Autowired
-    public HashGroupRpcCmdHandler(ManagerRpcBeanHelper beanHelper, TxManagerConfig managerConfig) {
+    public HashGroupRpcCmdHandler(ManagerRpcBeanHelper beanHelper, TxManagerConfig managerConfig,
+                                  RpcClient rpcClient, TxLogger txLogger) {
         this.concurrentLevel = Math.max(
                 (int) (Runtime.getRuntime().availableProcessors() / (1 - 0.8)), managerConfig.getConcurrentLevel());
         log.info("Transaction concurrent level is {}", this.concurrentLevel);
         this.beanHelper = beanHelper;
+        this.rpcClient = rpcClient;
+        this.txLogger = txLogger;
         this.executors = new ArrayList<>(this.concurrentLevel);
         for (int i = 0; i < this.concurrentLevel; i++) {
             this.executors.add(Executors.newSingleThreadExecutor(r -> new Thread(r, "tx-cmd-executor")));
@@ -69,6 +78,15 @@ public class HashGroupRpcCmdHandler {
     }
 
     public void handleMessage(RpcCmd rpcCmd) {
+        // 未知或无处理器的命令直接拒绝
+        String action = rpcCmd.getMsg().getAction();
+        LCNCmdType cmdType = LCNCmdType.fromAction(action);
+        RpcExecuteService rpcExecuteService = Objects.isNull(cmdType) ? null : beanHelper.loadManagerService(cmdType);
+        if (Objects.isNull(rpcExecuteService)) {
+            reject(rpcCmd, action);
+            return;
+        }
+
         // 按事务组hash值从有限的线程池中做出选择
         String groupId = rpcCmd.getMsg().getGroupId();
         if (Objects.isNull(groupId)) {
@@ -78,6 +96,17 @@ public class HashGroupRpcCmdHandler {
         log.debug("group:{}'s message dispatched executor index: {}", rpcCmd.getMsg().getGroupId(), index);
 
         // 提交事务消息，处理
-        executors.get(index).submit(new RpcCmdTask(beanHelper, rpcCmd));
+        executors.get(index).submit(new RpcCmdTask(rpcExecuteService, cmdType, rpcCmd, rpcClient, txLogger));
+    }
+
+    private void reject(RpcCmd rpcCmd, String action) {
+        beanHelper.rejectAction(action);
+        if (Objects.nonNull(rpcCmd.getKey())) {
+            rpcCmd.setMsg(MessageCreator.notifyGroupFailResponse("unsupported action.", action));
+            try {
+                rpcClient.send(rpcCmd);
+            } catch (RpcException ignored) {
+            }
+        }
     }
 }
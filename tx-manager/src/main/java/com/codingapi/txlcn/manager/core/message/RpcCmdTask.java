@@ -15,9 +15,7 @@
  */
 package com.codingapi.txlcn.manager.core.message;
 
-import com.codingapi.txlcn.commons.exception.UserRollbackException;
 import com.codingapi.txlcn.logger.TxLogger;
-import com.codingapi.txlcn.manager.support.ManagerRpcBeanHelper;
 import com.codingapi.txlcn.spi.message.RpcClient;
 import com.codingapi.txlcn.spi.message.dto.MessageDto;
 import com.codingapi.txlcn.spi.message.dto.RpcCmd;
@@ -39,24 +37,27 @@ public class RpcCmdTask implements Runnable {
 
     private final RpcCmd rpcCmd;
 
-    private final ManagerRpcBeanHelper rpcBeanHelper;
+    private final RpcExecuteService rpcExecuteService;
+
+    private final LCNCmdType cmdType;
 
     private final RpcClient rpcClient;
 
     private final TxLogger txLogger;
 
-    public RpcCmdTask(ManagerRpcBeanHelper rpcBeanHelper, RpcCmd rpcCmd) {
-        this.rpcBeanHelper = rpcBeanHelper;
+    public RpcCmdTask(RpcExecuteService rpcExecuteService, LCNCmdType cmdType, RpcCmd rpcCmd,
+                      RpcClient rpcClient, TxLogger txLogger) {
+        this.rpcExecuteService = rpcExecuteService;
+        this.cmdType = cmdType;
         this.rpcCmd = rpcCmd;
-        this.rpcClient = rpcBeanHelper.getByType(RpcClient.class);
-        this.txLogger = rpcBeanHelper.getByType(TxLogger.class);
+        this.rpcClient = rpcClient;
+        this.txLogger = txLogger;
     }
 
     @Override
     public void run() {
         TransactionCmd transactionCmd = parser(rpcCmd);
         String action = transactionCmd.getMsg().getAction();
-        RpcExecuteService rpcExecuteService = rpcBeanHelper.loadManagerService(transactionCmd.getType());
         MessageDto messageDto = null;
         try {
             Serializable message = rpcExecuteService.execute(transactionCmd);
@@ -84,7 +85,7 @@ public class RpcCmdTask implements Runnable {
         TransactionCmd cmd = new TransactionCmd();
         cmd.setRequestKey(rpcCmd.getKey());
         cmd.setRemoteKey(rpcCmd.getRemoteKey());
-        cmd.setType(LCNCmdType.parserCmd(rpcCmd.getMsg().getAction()));
+        cmd.setType(cmdType);
         cmd.setGroupId(rpcCmd.getMsg().getGroupId());
         cmd.setMsg(rpcCmd.getMsg());
         return cmd;
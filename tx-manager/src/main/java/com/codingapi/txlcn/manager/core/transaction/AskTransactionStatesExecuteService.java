@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2019 CodingApi .
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.codingapi.txlcn.manager.core.transaction;
+
+import com.codingapi.txlcn.manager.core.context.TransactionManager;
+import com.codingapi.txlcn.manager.core.message.RpcExecuteService;
+import com.codingapi.txlcn.manager.core.message.TransactionCmd;
+import com.codingapi.txlcn.spi.message.params.AskTransactionStateParams;
+import com.codingapi.txlcn.spi.message.params.AskTransactionStatesParams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Description: 批量响应事务状态，一次往返确定多个超时事务单元的状态
+ */
+@Component("rpc_ask-transaction-states")
+@Slf4j
+public class AskTransactionStatesExecuteService implements RpcExecuteService {
+
+    private final TransactionManager transactionManager;
+
+    @Autowired
+    public AskTransactionStatesExecuteService(TransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public Serializable execute(TransactionCmd transactionCmd) {
+        AskTransactionStatesParams params = transactionCmd.getMsg().loadBean(AskTransactionStatesParams.class);
+        List<String> groupIds = new ArrayList<>(params.getUnits().size());
+        for (AskTransactionStateParams unit : params.getUnits()) {
+            groupIds.add(unit.getGroupId());
+        }
+        List<Integer> states = transactionManager.transactionStates(groupIds);
+        List<Integer> result = new ArrayList<>(states.size());
+        for (Integer state : states) {
+            result.add(state == -1 ? 0 : state);
+        }
+        log.debug("ask transaction states of {} units.", groupIds.size());
+        return new AskTransactionStatesParams(params.getUnits(), result);
+    }
+}
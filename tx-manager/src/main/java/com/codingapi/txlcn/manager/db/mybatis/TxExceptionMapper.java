@@ -45,6 +45,9 @@ public interface TxExceptionMapper {
     @Select("select transaction_state from t_tx_exception where group_id=#{groupId} limit 1")
     Integer getTransactionStateByGroupId(String groupId);
 
+    @SelectProvider(type = TxExceptionMapperProvider.class, method = "findTransactionStatesByGroupIds")
+    List<TxException> findTransactionStatesByGroupIds(List<String> groupIds);
+
     @Select("select * from t_tx_exception where ex_state=#{exState} and registrar=#{registrar}")
     List<TxException> findByExStateAndRegistrar(@Param("exState") Integer exState, @Param("registrar") Integer registrar);
 
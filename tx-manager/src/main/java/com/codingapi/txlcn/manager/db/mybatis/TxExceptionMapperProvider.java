@@ -21,4 +21,14 @@ public class TxExceptionMapperProvider {
                         .collect(Collectors.joining(", ")) +
                 ')';
     }
+
+    @SuppressWarnings("unchecked")
+    public String findTransactionStatesByGroupIds(Map<String, Object> params) {
+        int size = ((List<String>) params.get("list")).size();
+        StringBuilder sql = new StringBuilder("select group_id, transaction_state from t_tx_exception where group_id in (");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "" : ", ").append("#{list[").append(i).append("]}");
+        }
+        return sql.append(')').toString();
+    }
 }
@@ -23,9 +23,12 @@ import com.codingapi.txlcn.manager.core.group.TransUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -46,6 +49,13 @@ public class RedisGroupRelationship implements GroupRelationship {
 
     private static final String REDIS_GROUP_STATE = REDIS_PREFIX + ":transactionState";
 
+    /**
+     * 事务组不存在时才放入发起方占位，重复创建不产生第二个占位
+     */
+    private static final RedisScript<Long> CREATE_GROUP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return redis.call('lpush', KEYS[1], ARGV[1]) end return 0",
+            Long.class);
+
     private final RedisTemplate<String, String> redisTemplate;
 
     private final TxManagerConfig managerConfig;
@@ -58,10 +68,15 @@ public class RedisGroupRelationship implements GroupRelationship {
 
     @Override
     public void createGroup(String groupId) {
-        redisTemplate.opsForList().leftPush(REDIS_PREFIX + groupId, "tx.starter");
+        redisTemplate.execute(CREATE_GROUP_SCRIPT, Collections.singletonList(REDIS_PREFIX + groupId), "tx.starter");
         redisTemplate.expire(REDIS_PREFIX + groupId, managerConfig.getDtxTime() + 10000, TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    public boolean existsGroup(String groupId) {
+        return Optional.ofNullable(redisTemplate.hasKey(REDIS_PREFIX + groupId)).orElse(false);
+    }
+
     @Override
     public void joinGroup(String groupId, TransUnit transUnit) throws JoinGroupException {
         if (Optional.ofNullable(redisTemplate.hasKey(REDIS_PREFIX + groupId)).orElse(false)) {
@@ -102,7 +117,22 @@ public class RedisGroupRelationship implements GroupRelationship {
 
     @Override
     public Short transactionState(String groupId) {
-        String state = redisTemplate.opsForValue().get(REDIS_GROUP_STATE + groupId);
+        return parseState(redisTemplate.opsForValue().get(REDIS_GROUP_STATE + groupId));
+    }
+
+    @Override
+    public List<Short> transactionStates(List<String> groupIds) {
+        List<String> keys = new ArrayList<>(groupIds.size());
+        groupIds.forEach(groupId -> keys.add(REDIS_GROUP_STATE + groupId));
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        List<Short> states = new ArrayList<>(groupIds.size());
+        for (int i = 0; i < groupIds.size(); i++) {
+            states.add(parseState(Objects.isNull(values) ? null : values.get(i)));
+        }
+        return states;
+    }
+
+    private static Short parseState(String state) {
         if (Objects.isNull(state)) {
             return -1;
         }
@@ -18,16 +18,22 @@ package com.codingapi.txlcn.manager.support;
 
 import com.codingapi.txlcn.spi.message.LCNCmdType;
 import com.codingapi.txlcn.manager.core.message.RpcExecuteService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * BeanName 获取工具类
+ * 启动后按 LCNCmdType 建立处理器表，消息分派为一次数组访问
  * @author lorne
  */
 @Component
-public class ManagerRpcBeanHelper {
+@Slf4j
+public class ManagerRpcBeanHelper implements SmartInitializingSingleton {
 
 
     /**
@@ -41,14 +47,52 @@ public class ManagerRpcBeanHelper {
     @Autowired
     private ApplicationContext spring;
 
+    private final RpcExecuteService[] services = new RpcExecuteService[LCNCmdType.values().length];
+
+    private final LongAdder unknownActions = new LongAdder();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (LCNCmdType cmdType : LCNCmdType.values()) {
+            String beanName = getServiceBeanName(cmdType);
+            if (spring.containsBean(beanName)) {
+                services[cmdType.ordinal()] = spring.getBean(beanName, RpcExecuteService.class);
+            }
+        }
+    }
 
     public String getServiceBeanName(LCNCmdType cmdType) {
         return String.format(RPC_BEAN_NAME_FORMAT, cmdType.getCode());
     }
 
 
+    /**
+     * 获取命令处理器
+     *
+     * @param cmdType cmdType
+     * @return 无对应处理器时返回 null
+     */
     public RpcExecuteService loadManagerService(LCNCmdType cmdType) {
-        return spring.getBean(getServiceBeanName(cmdType), RpcExecuteService.class);
+        return services[cmdType.ordinal()];
+    }
+
+    /**
+     * 记录一次无法处理的消息
+     *
+     * @param action action
+     */
+    public void rejectAction(String action) {
+        unknownActions.increment();
+        log.debug("rejected unsupported action: {}", action);
+    }
+
+    /**
+     * 被拒绝的消息数量
+     *
+     * @return count
+     */
+    public long getRejectedActionCount() {
+        return unknownActions.sum();
     }
 
     public <T> T getByType(Class<T> type) {
@@ -21,6 +21,7 @@ import com.codingapi.txlcn.commons.exception.TxManagerException;
 import com.codingapi.txlcn.manager.support.restapi.model.ExceptionList;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Description:
@@ -46,6 +47,14 @@ public interface TxExceptionService {
      */
     int transactionState(String groupId);
 
+    /**
+     * 批量获取事务状态，一次查询
+     *
+     * @param groupIds groupIds
+     * @return groupId -> transactionState，无记录的事务组不在结果中
+     */
+    Map<String, Integer> transactionStates(List<String> groupIds);
+
     /**
      * 获取补偿列表
      *
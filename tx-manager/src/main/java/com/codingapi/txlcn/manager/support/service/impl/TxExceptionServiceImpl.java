@@ -39,7 +39,9 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -91,6 +93,20 @@ public class TxExceptionServiceImpl implements TxExceptionService {
         return state;
     }
 
+    @Override
+    public Map<String, Integer> transactionStates(List<String> groupIds) {
+        Map<String, Integer> states = new HashMap<>(groupIds.size());
+        if (groupIds.isEmpty()) {
+            return states;
+        }
+        for (TxException txException : txExceptionMapper.findTransactionStatesByGroupIds(groupIds)) {
+            if (Objects.nonNull(txException.getTransactionState())) {
+                states.putIfAbsent(txException.getGroupId(), txException.getTransactionState());
+            }
+        }
+        return states;
+    }
+
     @Override
     public ExceptionList exceptionList(Integer page, Integer limit, Integer exState, String keyword, Integer registrar) {
         if (Objects.isNull(page) || page <= 0) {
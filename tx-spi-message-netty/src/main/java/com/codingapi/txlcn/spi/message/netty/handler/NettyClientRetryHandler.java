@@ -79,6 +79,7 @@ public class NettyClientRetryHandler extends ChannelInboundHandlerAdapter {
 
         SocketAddress socketAddress =  ctx.channel().remoteAddress();
         log.error("socketAddress:{} ", socketAddress);
+        clientInitCallBack.disconnected(socketAddress.toString());
         nettyRpcClientInitializer.connect(socketAddress);
     }
 
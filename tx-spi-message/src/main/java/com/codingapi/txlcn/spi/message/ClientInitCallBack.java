@@ -31,5 +31,11 @@ public interface ClientInitCallBack {
      */
     void connected(String remoteKey);
 
+    /**
+     * 连接断开回调
+     * @param remoteKey 远程调用唯一key
+     */
+    default void disconnected(String remoteKey) {
+    }
 
 }
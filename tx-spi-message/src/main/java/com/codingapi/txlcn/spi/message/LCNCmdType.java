@@ -55,6 +55,12 @@ public enum LCNCmdType {
      */
     askTransactionState("ask-transaction-state", MessageConstants.ACTION_ASK_TRANSACTION_STATE),
 
+    /**
+     * 批量响应事务状态
+     * 简写 atss
+     */
+    askTransactionStates("ask-transaction-states", MessageConstants.ACTION_ASK_TRANSACTION_STATES),
+
     /**
      * 记录补偿
      * 简写 wc
@@ -100,7 +106,23 @@ public enum LCNCmdType {
     }
 
     public static LCNCmdType parserCmd(String cmd) {
-        log.debug("parsed cmd: {}", cmd);
+        LCNCmdType cmdType = fromAction(cmd);
+        if (cmdType == null) {
+            throw new IllegalStateException("unsupported cmd.");
+        }
+        return cmdType;
+    }
+
+    /**
+     * 按消息 action 解析命令类型
+     *
+     * @param cmd action
+     * @return 未知 action 返回 null
+     */
+    public static LCNCmdType fromAction(String cmd) {
+        if (cmd == null) {
+            return null;
+        }
         switch (cmd) {
             case MessageConstants.ACTION_CREATE_GROUP:
                 return createGroup;
@@ -112,6 +134,8 @@ public enum LCNCmdType {
                 return joinGroup;
             case MessageConstants.ACTION_ASK_TRANSACTION_STATE:
                 return askTransactionState;
+            case MessageConstants.ACTION_ASK_TRANSACTION_STATES:
+                return askTransactionStates;
             case MessageConstants.ACTION_WRITE_EXCEPTION:
                 return writeCompensation;
             case MessageConstants.ACTION_NEW_TXMANAGER:
@@ -121,7 +145,7 @@ public enum LCNCmdType {
             case MessageConstants.ACTION_INIT_CLIENT:
                 return initClient;
             default:
-                throw new IllegalStateException("unsupported cmd.");
+                return null;
         }
     }
 }
@@ -48,6 +48,11 @@ public class MessageConstants {
      */
     public static final String ACTION_ASK_TRANSACTION_STATE = "askTransactionState";
 
+    /**
+     * 批量询问事务状态
+     */
+    public static final String ACTION_ASK_TRANSACTION_STATES = "askTransactionStates";
+
     /**
      * 写异常记录
      */
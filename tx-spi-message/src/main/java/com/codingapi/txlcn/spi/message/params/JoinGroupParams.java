@@ -53,4 +53,9 @@ public class JoinGroupParams implements Serializable {
      * 0 回滚 1提交
      */
     private int transactionState = 1;
+
+    /**
+     * 事务组不存在时由 TxManager 创建（一阶段事务组，或乐观模式下创建请求晚于加入到达）
+     */
+    private boolean createGroupIfAbsent;
 }